@@ -0,0 +1,92 @@
+package com.cascadebot.cascadebot.commandmeta;
+
+import com.cascadebot.shared.Regex;
+import org.apache.commons.lang3.ArrayUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old regex and split based message parsing in CommandListener with {@link CommandTokens}, on a corpus
+ * where the given percentage of messages are commands and the rest are chat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandTokensBenchmark {
+
+    private static final String PREFIX = ";";
+
+    private static final String[] CHAT = {
+            "hello everyone",
+            "has anyone seen the new update?  it looks   really good",
+            "lol",
+            "I think the bot is down again, can someone check? It didn't respond to anything I sent in the last ten minutes",
+            "<@123456789012345678> are you coming tonight?",
+            "https://example.com/some/long/link/to/a/page?with=query&and=more"
+    };
+
+    private static final String[] COMMANDS = {
+            ";help",
+            ";ban  <@123456789012345678>   spamming in general",
+            ";prefix !",
+            ";usage ban",
+            ";permissions group create moderators"
+    };
+
+    @Param({"1", "10", "50"})
+    private int commandPercent;
+
+    private String[] corpus;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        corpus = new String[1024];
+        for (int i = 0; i < corpus.length; i++) {
+            String[] source = random.nextInt(100) < commandPercent ? COMMANDS : CHAT;
+            corpus[i] = source[random.nextInt(source.length)];
+        }
+    }
+
+    @Benchmark
+    public void regexAndSplit(Blackhole blackhole) {
+        for (String raw : corpus) {
+            String message = Regex.MULTISPACE_REGEX.matcher(raw).replaceAll(" ");
+            if (message.startsWith(PREFIX)) {
+                String commandWithArgs = message.substring(PREFIX.length());
+                blackhole.consume(commandWithArgs.split(" ")[0]);
+                blackhole.consume(ArrayUtils.remove(commandWithArgs.split(" "), 0));
+            }
+        }
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole blackhole) {
+        for (String message : corpus) {
+            if (message.startsWith(PREFIX)) {
+                CommandTokens tokens = CommandTokens.tokenize(message, PREFIX.length());
+                if (tokens != null) {
+                    blackhole.consume(tokens.getTrigger());
+                    blackhole.consume(tokens.getArgs());
+                }
+            }
+        }
+    }
+
+}
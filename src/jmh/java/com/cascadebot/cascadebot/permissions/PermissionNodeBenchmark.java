@@ -0,0 +1,82 @@
+package com.cascadebot.cascadebot.permissions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the old regex based {@code PermissionNode.test} with the compiled {@link PermissionNode}, testing a node
+ * against every registered permission like {@code PermissionsManager.isValidPermission} used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionNodeBenchmark {
+
+    private static final String[] MODULES = {"core", "management", "informational", "moderation", "fun", "music"};
+
+    @Param({"cascade.core.help", "cascade.moderation.*", "*.ban", "*"})
+    private String node;
+
+    private List<String> permissions;
+
+    @Setup
+    public void setup() {
+        permissions = new ArrayList<>();
+        for (String module : MODULES) {
+            for (int i = 0; i < 20; i++) {
+                permissions.add("cascade." + module + ".command" + i);
+            }
+        }
+        permissions.add("cascade.core.help");
+        permissions.add("cascade.moderation.ban");
+    }
+
+    @Benchmark
+    public int legacyRegex() {
+        int matched = 0;
+        for (String permission : permissions) {
+            if (legacyTest(node, permission)) matched++;
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int compiled() {
+        PermissionNode permissionNode = PermissionNode.of(node);
+        int matched = 0;
+        for (String permission : permissions) {
+            if (permissionNode.test(permission)) matched++;
+        }
+        return matched;
+    }
+
+    // The regex matching from before nodes were compiled
+    private static boolean legacyTest(String node, String permission) {
+        if (node.equals("*"))
+            return true;
+        String textNode = Arrays.stream(node.split("(?:^\\*(\\.))|(?:(?<=\\.)\\*(?=\\.))|(?:(?<=\\.)\\*$)"))
+                .map(Pattern::quote)
+                .collect(Collectors.joining(".+")) + (node.endsWith("*") ? ".+" : "");
+        return permission.matches(textNode);
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.cascadebot.cascadebot.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old {@code String.format} based {@code FormatUtils.makeAsciiTable} with the current renderer, which
+ * writes every row straight into one pre-sized builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsciiTableBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int rows;
+
+    private List<String> headings;
+    private List<List<String>> body;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        headings = List.of("Name", "ID", "Level", "Description");
+        body = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            body.add(List.of("user" + random.nextInt(100_000), String.valueOf(random.nextLong() & Long.MAX_VALUE),
+                    String.valueOf(random.nextInt(100)), StringUtils.repeat('x', 5 + random.nextInt(30))));
+        }
+    }
+
+    @Benchmark
+    public String legacyFormat() {
+        return legacyMakeAsciiTable(headings, body, "Footer");
+    }
+
+    @Benchmark
+    public String renderer() {
+        return FormatUtils.makeAsciiTable(headings, body, "Footer");
+    }
+
+    // The table rendering from before rows were written without String.format
+    private static String legacyMakeAsciiTable(List<String> headers, List<List<String>> table, String footer) {
+        StringBuilder sb = new StringBuilder();
+        int padding = 1;
+        int[] widths = new int[headers.size()];
+        for (int i = 0; i < headers.size(); i++) {
+            if (headers.get(i).length() > widths[i]) {
+                widths[i] = headers.get(i).length();
+            }
+        }
+        for (List<String> row : table) {
+            for (int i = 0; i < row.size(); i++) {
+                String cell = row.get(i);
+                if (cell.length() > widths[i]) {
+                    widths[i] = cell.length();
+                }
+            }
+        }
+        sb.append("```").append("md").append("\n");
+        StringBuilder formatLine = new StringBuilder("|");
+        for (int width : widths) {
+            formatLine.append(" %-").append(width).append("s |");
+        }
+        formatLine.append("\n");
+        sb.append(legacySeparatorLine(padding, widths));
+        sb.append(String.format(formatLine.toString(), headers.toArray()));
+        sb.append(legacySeparatorLine(padding, widths));
+        for (List<String> row : table) {
+            sb.append(String.format(formatLine.toString(), row.toArray()));
+        }
+        if (footer != null) {
+            sb.append(legacySeparatorLine(padding, widths));
+            sb.append(legacyFooter(footer, padding, widths));
+        }
+        sb.append(legacySeparatorLine(padding, widths));
+        sb.append("```");
+        return sb.toString();
+    }
+
+    private static String legacySeparatorLine(int padding, int... sizes) {
+        StringBuilder ret = new StringBuilder();
+        for (int size : sizes) {
+            ret.append("+").append(StringUtils.repeat("-", size + padding * 2));
+        }
+        return ret.append("+").append("\n").toString();
+    }
+
+    private static String legacyFooter(String footer, int padding, int... sizes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("|");
+        int total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            total += sizes[i] + (i == sizes.length - 1 ? 0 : 1) + padding * 2;
+        }
+        sb.append(footer);
+        sb.append(StringUtils.repeat(" ", total - footer.length()));
+        sb.append("|\n");
+        return sb.toString();
+    }
+
+}
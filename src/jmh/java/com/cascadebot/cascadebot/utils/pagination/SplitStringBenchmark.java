@@ -0,0 +1,92 @@
+package com.cascadebot.cascadebot.utils.pagination;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old {@code PageUtils.splitString}, which copied the leftover of every page into the next, with the
+ * index range splitter on multi-megabyte strings split at new lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitStringBenchmark {
+
+    @Param({"1048576", "4194304", "16777216"})
+    private int size;
+
+    @Param({"1800"})
+    private int length;
+
+    private String string;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder(size);
+        while (builder.length() < size) {
+            int lineLength = 10 + random.nextInt(110);
+            for (int i = 0; i < lineLength; i++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            builder.append('\n');
+        }
+        builder.setLength(size);
+        string = builder.toString();
+    }
+
+    @Benchmark
+    public List<String> legacy() {
+        return legacySplitString(string, length, '\n');
+    }
+
+    @Benchmark
+    public List<String> ranges() {
+        return PageUtils.splitString(string, length, '\n');
+    }
+
+    // The splitter from before pages were split over index ranges
+    private static List<String> legacySplitString(String string, int length, char c) {
+        int amount = (int) ((double) string.length() / (double) length);
+
+        List<String> strings = new ArrayList<>();
+        String toAdd = "";
+
+        for (int i = 0; i <= amount; i++) {
+            int start = length * i;
+            int end = Math.min(start + (length - 1), string.length());
+
+            String temp = toAdd + string.substring(start, end == string.length() ? end : end - toAdd.length());
+            int last;
+            if (end != string.length()) {
+                last = temp.lastIndexOf(c);
+
+                toAdd = temp.substring(last + 1);
+            } else {
+                last = temp.length();
+            }
+
+            strings.add(temp.substring(0, last));
+        }
+
+        return strings;
+    }
+
+}
@@ -11,8 +11,15 @@ import com.cascadebot.cascadebot.data.database.DatabaseManager;
 import com.cascadebot.cascadebot.events.ButtonEventListener;
 import com.cascadebot.cascadebot.events.CommandListener;
 import com.cascadebot.cascadebot.events.GeneralEvents;
+import com.cascadebot.cascadebot.events.PermissionEventListener;
 import com.cascadebot.cascadebot.music.MusicHandler;
+import com.cascadebot.cascadebot.messaging.ReplyQueue;
 import com.cascadebot.cascadebot.permissions.PermissionsManager;
+import com.cascadebot.cascadebot.tasks.ButtonReactionClearTask;
+import com.cascadebot.cascadebot.tasks.GuildSaveTask;
+import com.cascadebot.cascadebot.utils.buttons.ButtonsCache;
+import com.cascadebot.cascadebot.utils.pagination.PageCache;
+import com.cascadebot.cascadebot.utils.rest.RestScheduler;
 import com.cascadebot.shared.Version;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -34,6 +41,7 @@ import javax.annotation.Nonnull;
 import javax.security.auth.login.LoginException;
 import java.io.IOException;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 public class CascadeBot {
 
@@ -47,6 +55,10 @@ public class CascadeBot {
     private CommandManager commandManager;
     private DatabaseManager databaseManager;
     private PermissionsManager permissionsManager;
+    private ButtonsCache buttonsCache;
+    private PageCache pageCache;
+    private ReplyQueue replyQueue;
+    private RestScheduler restScheduler;
     private OkHttpClient httpClient;
 
     public static void main(String[] args) {
@@ -115,6 +127,16 @@ public class CascadeBot {
             );
         }
 
+        restScheduler = new RestScheduler(5000);
+        buttonsCache = new ButtonsCache(5);
+        pageCache = new PageCache(64 * 1024 * 1024, 50); // 64MB
+        replyQueue = new ReplyQueue(250);
+
+        // The tasks use the caches above so they can only be started once those exist
+        long saveInterval = TimeUnit.SECONDS.toMillis(Config.INS.getGuildSaveInterval());
+        new GuildSaveTask().start(saveInterval, saveInterval);
+        new ButtonReactionClearTask().start(2000, 2000);
+
         JdaLavalink lavalink = new MusicHandler(this).buildMusic();
 
         gson = builder.create();
@@ -123,6 +145,7 @@ public class CascadeBot {
                     .addEventListeners(new CommandListener())
                     .addEventListeners(new GeneralEvents())
                     .addEventListeners(new ButtonEventListener())
+                    .addEventListeners(new PermissionEventListener())
                     .addEventListeners(lavalink)
                     .setToken(Config.INS.getBotToken())
                     //.setAudioSendFactory(new NativeAudioSendFactory())
@@ -202,6 +225,22 @@ public class CascadeBot {
         return permissionsManager;
     }
 
+    public ButtonsCache getButtonsCache() {
+        return buttonsCache;
+    }
+
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    public ReplyQueue getReplyQueue() {
+        return replyQueue;
+    }
+
+    public RestScheduler getRestScheduler() {
+        return restScheduler;
+    }
+
     public OkHttpClient getHttpClient() {
         return httpClient;
     }
@@ -12,8 +12,12 @@ import com.cascadebot.cascadebot.tasks.Task;
 import com.cascadebot.shared.ExitCodes;
 import com.cascadebot.shared.SharedConstants;
 
+import java.util.concurrent.TimeUnit;
+
 public class ShutdownHandler {
 
+    private static final long SHUTDOWN_TIMEOUT = 10; // Seconds to wait for each of the queues and saves
+
     static {
         Runtime.getRuntime().addShutdownHook(new Thread(ShutdownHandler::shutdown));
     }
@@ -44,11 +48,21 @@ public class ShutdownHandler {
 
     private static void shutdown() {
         CascadeBot.LOGGER.info("Bot shutting down gracefully!");
-        long startTime = System.currentTimeMillis(); // Ensures all data is saved before exiting
-        GuildDataMapper.getGuilds().asMap().forEach(GuildDataMapper::replaceSync);
-        CascadeBot.LOGGER.info("Took " + (System.currentTimeMillis() - startTime) + "ms to save!");
         EvalCommand.shutdownEvalPool();
         CommandListener.shutdownCommandPool();
+
+        // Send what's still queued before JDA shuts down so replies and moderation actions aren't lost
+        CascadeBot.INS.getReplyQueue().flushAll();
+        if (!CascadeBot.INS.getRestScheduler().awaitEmpty(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+            CascadeBot.LOGGER.warn("Gave up waiting for queued requests to be sent after {} seconds!", SHUTDOWN_TIMEOUT);
+        }
+
+        long startTime = System.currentTimeMillis(); // Ensures all data is saved before exiting
+        if (!GuildDataMapper.awaitWrites(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+            CascadeBot.LOGGER.warn("Gave up waiting for in-flight guild saves after {} seconds!", SHUTDOWN_TIMEOUT);
+        }
+        GuildDataMapper.saveDirtySync();
+        CascadeBot.LOGGER.info("Took " + (System.currentTimeMillis() - startTime) + "ms to save!");
         Task.shutdownTaskPool();
         CascadeBot.INS.getShardManager().shutdown();
     }
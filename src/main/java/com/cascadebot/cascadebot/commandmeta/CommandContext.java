@@ -9,14 +9,18 @@ import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.data.Config;
 import com.cascadebot.cascadebot.data.objects.GuildData;
 import com.cascadebot.cascadebot.data.objects.GuildSettings;
+import com.cascadebot.cascadebot.messaging.MessageType;
 import com.cascadebot.cascadebot.messaging.Messaging;
-import com.cascadebot.cascadebot.messaging.MessagingObjects;
 import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.cascadebot.cascadebot.utils.buttons.ButtonGroup;
 import com.cascadebot.cascadebot.utils.pagination.Page;
+import com.cascadebot.cascadebot.utils.pagination.PageSource;
 import com.cascadebot.shared.Regex;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
 import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.JDA;
+import net.dv8tion.jda.core.MessageBuilder;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Emote;
 import net.dv8tion.jda.core.entities.Guild;
@@ -26,7 +30,6 @@ import net.dv8tion.jda.core.entities.MessageEmbed;
 import net.dv8tion.jda.core.entities.SelfUser;
 import net.dv8tion.jda.core.entities.TextChannel;
 import net.dv8tion.jda.core.entities.User;
-import net.dv8tion.jda.core.requests.restaction.MessageAction;
 import net.dv8tion.jda.core.utils.Checks;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -34,6 +37,9 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 public class CommandContext {
 
@@ -154,22 +160,22 @@ public class CommandContext {
      */
     public void reply(String message) {
         Checks.notBlank(message, "message");
-        channel.sendMessage(message).queue();
+        CascadeBot.INS.getReplyQueue().queue(channel, null, message, member, false);
     }
 
     public void reply(MessageEmbed embed) {
         Checks.notNull(embed, "embed");
-        channel.sendMessage(embed).queue();
+        CascadeBot.INS.getReplyQueue().queue(channel, embed);
     }
 
     public void reply(Message message) {
         Checks.notNull(message, "message");
-        channel.sendMessage(message).queue();
+        CascadeBot.INS.getReplyQueue().queue(channel, message);
     }
 
     public void replyInfo(String message) {
         Checks.notBlank(message, "message");
-        Messaging.sendInfoMessage(channel, MessagingObjects.getStandardMessageEmbed(message, getUser()), getSettings().useEmbedForMessages());
+        CascadeBot.INS.getReplyQueue().queue(channel, MessageType.INFO, message, member, getSettings().useEmbedForMessages());
     }
 
     public void replyInfo(String message, Object... objects) {
@@ -178,12 +184,14 @@ public class CommandContext {
 
     public void replyInfo(EmbedBuilder builder) {
         Checks.notNull(builder, "build");
-        Messaging.sendInfoMessage(channel, builder, getSettings().useEmbedForMessages());
+        boolean embed = getSettings().useEmbedForMessages();
+        EmbedBuilder copy = new EmbedBuilder(builder); // The send can be held back, so later changes to the builder mustn't show
+        queueReported(() -> Messaging.sendInfoMessage(channel, copy, embed));
     }
 
     public void replySuccess(String message) {
         Checks.notBlank(message, "message");
-        Messaging.sendSuccessMessage(channel, MessagingObjects.getStandardMessageEmbed(message, getUser()), getSettings().useEmbedForMessages());
+        CascadeBot.INS.getReplyQueue().queue(channel, MessageType.SUCCESS, message, member, getSettings().useEmbedForMessages());
     }
 
     public void replySuccess(String message, Object... objects) {
@@ -192,12 +200,14 @@ public class CommandContext {
 
     public void replySuccess(EmbedBuilder builder) {
         Checks.notNull(builder, "build");
-        Messaging.sendSuccessMessage(channel, builder, getSettings().useEmbedForMessages());
+        boolean embed = getSettings().useEmbedForMessages();
+        EmbedBuilder copy = new EmbedBuilder(builder);
+        queueReported(() -> Messaging.sendSuccessMessage(channel, copy, embed));
     }
 
     public void replyWarning(String message) {
         Checks.notBlank(message, "message");
-        Messaging.sendWarningMessage(channel, MessagingObjects.getStandardMessageEmbed(message, getUser()), getSettings().useEmbedForMessages());
+        CascadeBot.INS.getReplyQueue().queue(channel, MessageType.WARNING, message, member, getSettings().useEmbedForMessages());
     }
 
     public void replyWarning(String message, Object... objects) {
@@ -206,12 +216,14 @@ public class CommandContext {
 
     public void replyWarning(EmbedBuilder builder) {
         Checks.notNull(builder, "build");
-        Messaging.sendWarningMessage(channel, builder, getSettings().useEmbedForMessages());
+        boolean embed = getSettings().useEmbedForMessages();
+        EmbedBuilder copy = new EmbedBuilder(builder);
+        queueReported(() -> Messaging.sendWarningMessage(channel, copy, embed));
     }
 
     public void replyModeration(String message) {
         Checks.notBlank(message, "message");
-        Messaging.sendModerationMessage(channel, MessagingObjects.getStandardMessageEmbed(message, getUser()), getSettings().useEmbedForMessages());
+        CascadeBot.INS.getReplyQueue().queue(channel, MessageType.MODERATION, message, member, getSettings().useEmbedForMessages());
     }
 
     public void replyModeration(String message, Object... objects) {
@@ -220,12 +232,14 @@ public class CommandContext {
 
     public void replyModeration(EmbedBuilder builder) {
         Checks.notNull(builder, "build");
-        Messaging.sendModerationMessage(channel, builder, getSettings().useEmbedForMessages());
+        boolean embed = getSettings().useEmbedForMessages();
+        EmbedBuilder copy = new EmbedBuilder(builder);
+        queueReported(() -> Messaging.sendModerationMessage(channel, copy, embed));
     }
 
     public void replyDanger(String message) {
         Checks.notBlank(message, "message");
-        Messaging.sendDangerMessage(channel, MessagingObjects.getStandardMessageEmbed(message, getUser()), getSettings().useEmbedForMessages());
+        CascadeBot.INS.getReplyQueue().queue(channel, MessageType.DANGER, message, member, getSettings().useEmbedForMessages());
     }
 
     public void replyDanger(String message, Object... objects) {
@@ -234,25 +248,37 @@ public class CommandContext {
 
     public void replyDanger(EmbedBuilder builder) {
         Checks.notNull(builder, "build");
-        Messaging.sendDangerMessage(channel, builder, getSettings().useEmbedForMessages());
+        boolean embed = getSettings().useEmbedForMessages();
+        EmbedBuilder copy = new EmbedBuilder(builder);
+        queueReported(() -> Messaging.sendDangerMessage(channel, copy, embed));
     }
 
     public void replyException(String message, Throwable throwable) {
-        Messaging.sendExceptionMessage(channel, message, new CommandException(throwable, guild, trigger));
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause(); // Failures passed along a future chain are wrapped
+        }
+        CommandException exception = new CommandException(throwable, guild, trigger);
+        queue(() -> Messaging.sendExceptionMessage(channel, message, exception)).exceptionally(error -> {
+            // Reporting this with another reply would fail the same way, usually we're missing a permission
+            CascadeBot.LOGGER.warn("Failed to send an exception message to channel ID: " + channel.getId(), error);
+            return null;
+        });
     }
 
     public void replyException(String message, Throwable throwable, Object... objects) {
-        Messaging.sendExceptionMessage(channel, String.format(message, objects), new CommandException(throwable, guild, trigger));
+        replyException(String.format(message, objects), throwable);
     }
 
-    public MessageAction replyImage(String url) {
+    public CompletableFuture<Message> replyImage(String url) {
+        Message message;
         if (getSettings().useEmbedForMessages()) {
-            EmbedBuilder embedBuilder = MessagingObjects.getClearThreadLocalEmbedBuilder();
+            EmbedBuilder embedBuilder = new EmbedBuilder();
             embedBuilder.setImage(url);
-            return channel.sendMessage(embedBuilder.build());
+            message = new MessageBuilder().setEmbed(embedBuilder.build()).build();
         } else {
-            return channel.sendMessage(url);
+            message = new MessageBuilder().append(url).build();
         }
+        return queue(() -> CascadeBot.INS.getRestScheduler().submit(RestPriority.REPLY, RestRoute.SEND_MESSAGE, channel.getIdLong(), channel.sendMessage(message)));
     }
 
     public String getUsage(ICommandExecutable command) {
@@ -313,7 +339,7 @@ public class CommandContext {
      */
     public void sendAutoDeleteMessage(String message, long delay) {
         Checks.notBlank(message, "message");
-        Messaging.sendAutoDeleteMessage(this.channel, message, delay);
+        queueReported(() -> Messaging.sendAutoDeleteMessage(channel, message, delay));
     }
 
     /**
@@ -324,7 +350,7 @@ public class CommandContext {
      */
     public void sendAutoDeleteMessage(MessageEmbed embed, long delay) {
         Checks.notNull(embed, "embed");
-        Messaging.sendAutoDeleteMessage(this.channel, embed, delay);
+        queueReported(() -> Messaging.sendAutoDeleteMessage(channel, embed, delay));
     }
 
     /**
@@ -336,7 +362,7 @@ public class CommandContext {
      */
     public void sendAutoDeleteMessage(Message message, long delay) {
         Checks.notNull(message, "message");
-        Messaging.sendAutoDeleteMessage(this.channel, message, delay);
+        queueReported(() -> Messaging.sendAutoDeleteMessage(channel, message, delay));
     }
 
     /**
@@ -467,19 +493,41 @@ public class CommandContext {
     }
 
     public void sendButtonedMessage(String message, ButtonGroup group) {
-        Messaging.sendButtonedMessage(channel, message, group);
+        queueReported(() -> Messaging.sendButtonedMessage(channel, message, group));
     }
 
     public void sendButtonedMessage(MessageEmbed embed, ButtonGroup group) {
-        Messaging.sendButtonedMessage(channel, embed, group);
+        queueReported(() -> Messaging.sendButtonedMessage(channel, embed, group));
     }
 
     public void sendButtonedMessage(Message message, ButtonGroup group) {
-        Messaging.sendButtonedMessage(channel, message, group);
+        queueReported(() -> Messaging.sendButtonedMessage(channel, message, group));
     }
 
     public void sendPagedMessage(List<Page> pages) {
-        Messaging.sendPagedMessage(channel, member, pages);
+        queueReported(() -> Messaging.sendPagedMessage(channel, member, pages));
+    }
+
+    public void sendPagedMessage(PageSource pages) {
+        queueReported(() -> Messaging.sendPagedMessage(channel, member, pages));
+    }
+
+    /**
+     * Queues a send to this context's channel so it's sent after any replies queued before it.
+     */
+    private <T> CompletableFuture<T> queue(Supplier<CompletableFuture<T>> send) {
+        return CascadeBot.INS.getReplyQueue().queue(channel, send);
+    }
+
+    /**
+     * Queues a send to this context's channel like {@link #queue(Supplier)}, replying with the exception if it fails.
+     * The send can be held back and made on another thread, so nothing else would see the failure.
+     */
+    private <T> void queueReported(Supplier<CompletableFuture<T>> send) {
+        queue(send).exceptionally(throwable -> {
+            replyException("Could not send the message!", throwable);
+            return null;
+        });
     }
 
     //endregion
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.commandmeta;
+
+import com.cascadebot.shared.utils.ThreadPoolExecutorLogged;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs commands on an underlying {@link ExecutorService} while limiting how many commands a single guild can
+ * have running at once. Commands over the limit wait in a bounded per-guild queue, and are rejected once that is full,
+ * so one guild can never take up all of the threads.
+ */
+public class CommandExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandExecutor.class);
+
+    private final ExecutorService executor;
+    private final int guildLimit;
+    private final int queueLimit;
+
+    private final Map<Long, GuildQueue> guildQueues = new ConcurrentHashMap<>();
+    private final Map<Class<? extends ICommandExecutable>, CommandStats> commandStats = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger(0);
+
+    /**
+     * Creates a command executor running on the supplied executor service.
+     *
+     * @param executor   The executor service commands will run on.
+     * @param guildLimit The max amount of commands a guild can have running at once.
+     * @param queueLimit The max amount of commands a guild can have waiting to run.
+     */
+    public CommandExecutor(ExecutorService executor, int guildLimit, int queueLimit) {
+        this.executor = executor;
+        this.guildLimit = guildLimit;
+        this.queueLimit = queueLimit;
+    }
+
+    /**
+     * Creates an executor service that runs each task on its own virtual thread, falling back to a fixed pool of
+     * platform threads when the JVM doesn't support virtual threads.
+     *
+     * @param fallbackThreads The amount of platform threads to use if virtual threads aren't available.
+     * @param threadGroup     The thread group for the fallback platform threads.
+     * @return The executor service to run commands on.
+     */
+    public static ExecutorService newCommandExecutorService(int fallbackThreads, ThreadGroup threadGroup) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            LOGGER.info("Commands will be run on virtual threads.");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            LOGGER.info("Virtual threads are not available, commands will be run on {} platform threads.", fallbackThreads);
+            AtomicInteger threadCounter = new AtomicInteger(0);
+            return ThreadPoolExecutorLogged.newFixedThreadPool(fallbackThreads, r ->
+                    new Thread(threadGroup, r, "Command Pool-" + threadCounter.incrementAndGet()), LOGGER);
+        }
+    }
+
+    /**
+     * Submits a command to run for a guild.
+     *
+     * @param guildId The ID of the guild the command was run in.
+     * @param command The class of the command used for statistics.
+     * @param task    The command task to run.
+     * @return {@code true} if the command was run or queued, {@code false} if the guild's queue is full or the
+     * executor has been shut down.
+     */
+    public boolean submit(long guildId, Class<? extends ICommandExecutable> command, Runnable task) {
+        CommandStats stats = commandStats.computeIfAbsent(command, type -> new CommandStats());
+        while (true) {
+            GuildQueue guildQueue = guildQueues.computeIfAbsent(guildId, id -> new GuildQueue());
+            CommandTask commandTask = new CommandTask(guildId, guildQueue, stats, task);
+            synchronized (guildQueue) {
+                if (guildQueue.removed) {
+                    continue; // The queue emptied and was removed before we locked it, so fetch a new one
+                }
+                if (guildQueue.running < guildLimit) {
+                    guildQueue.running++;
+                } else if (guildQueue.waiting.size() < queueLimit) {
+                    guildQueue.waiting.add(commandTask);
+                    queued.incrementAndGet();
+                    return true;
+                } else {
+                    stats.rejected.increment();
+                    return false;
+                }
+            }
+            try {
+                executor.execute(commandTask);
+            } catch (RejectedExecutionException e) {
+                stats.rejected.increment();
+                onComplete(guildId, guildQueue); // Give the running slot back
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void onComplete(long guildId, GuildQueue guildQueue) {
+        while (true) {
+            CommandTask next;
+            synchronized (guildQueue) {
+                next = guildQueue.waiting.poll();
+                if (next == null) {
+                    guildQueue.running--;
+                    if (guildQueue.running == 0) {
+                        guildQueue.removed = true;
+                        guildQueues.remove(guildId, guildQueue);
+                    }
+                    return;
+                }
+            }
+            queued.decrementAndGet();
+            try {
+                executor.execute(next);
+                return;
+            } catch (RejectedExecutionException e) {
+                // The executor has been shut down so the waiting command can never run, try the next one
+                next.stats.rejected.increment();
+            }
+        }
+    }
+
+    /**
+     * Gets the total amount of commands waiting to run across all guilds.
+     *
+     * @return The current queue depth.
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Gets the statistics for each command that has been submitted, keyed by command class.
+     *
+     * @return An unmodifiable view of the command statistics.
+     */
+    public Map<Class<? extends ICommandExecutable>, CommandStats> getCommandStats() {
+        return Collections.unmodifiableMap(commandStats);
+    }
+
+    /**
+     * Gets the executor service commands run on, for carrying on async work such as loading guild data off of
+     * the database driver's threads. Tasks run directly on it aren't limited per guild.
+     *
+     * @return The underlying executor service.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private class CommandTask implements Runnable {
+
+        private final long guildId;
+        private final GuildQueue guildQueue;
+        private final CommandStats stats;
+        private final Runnable task;
+        private final long submitted = System.nanoTime();
+
+        private CommandTask(long guildId, GuildQueue guildQueue, CommandStats stats, Runnable task) {
+            this.guildId = guildId;
+            this.guildQueue = guildQueue;
+            this.stats = stats;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            stats.waitTime.add(start - submitted);
+            try {
+                task.run();
+            } finally {
+                stats.runTime.add(System.nanoTime() - start);
+                stats.executions.increment();
+                onComplete(guildId, guildQueue);
+            }
+        }
+
+    }
+
+    private static class GuildQueue {
+
+        private final Queue<CommandTask> waiting = new ArrayDeque<>();
+        private int running;
+        private boolean removed;
+
+    }
+
+    public static class CommandStats {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder waitTime = new LongAdder();
+        private final LongAdder runTime = new LongAdder();
+
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        public long getTotalWaitTime(TimeUnit unit) {
+            return unit.convert(waitTime.sum(), TimeUnit.NANOSECONDS);
+        }
+
+        public long getTotalRunTime(TimeUnit unit) {
+            return unit.convert(runTime.sum(), TimeUnit.NANOSECONDS);
+        }
+
+        public double getAverageWaitTime(TimeUnit unit) {
+            long executions = getExecutions();
+            return executions == 0 ? 0 : (double) getTotalWaitTime(unit) / executions;
+        }
+
+        public double getAverageRunTime(TimeUnit unit) {
+            long executions = getExecutions();
+            return executions == 0 ? 0 : (double) getTotalRunTime(unit) / executions;
+        }
+
+    }
+
+}
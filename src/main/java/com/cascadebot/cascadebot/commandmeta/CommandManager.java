@@ -15,7 +15,10 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class CommandManager {
@@ -45,16 +48,27 @@ public class CommandManager {
     }
 
     public ICommandMain getCommand(String command, User user, GuildData data) {
+        return data.getCommandTriggers().get(command.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Builds an immutable trigger to command index for a guild. Each command contributes its guild specific name
+     * followed by its aliases, all lower-cased. Commands earlier in the command list win on a clashing trigger.
+     *
+     * @param data The guild data to build the index for.
+     * @return An immutable map of lower-cased triggers to the command they run.
+     */
+    public Map<String, ICommandMain> buildTriggerIndex(GuildData data) {
+        Map<String, ICommandMain> triggers = new HashMap<>();
         synchronized (commands) {
             for (ICommandMain cmd : commands) {
-                if (data.getCommandName(cmd).equalsIgnoreCase(command)) {
-                    return cmd;
-                } else if (data.getCommandAliases(cmd).contains(command)) {
-                    return cmd;
+                triggers.putIfAbsent(data.getCommandName(cmd).toLowerCase(Locale.ROOT), cmd);
+                for (String alias : data.getCommandAliases(cmd)) {
+                    triggers.putIfAbsent(alias.toLowerCase(Locale.ROOT), cmd);
                 }
             }
         }
-        return null;
+        return Collections.unmodifiableMap(triggers);
     }
 
     public List<ICommandMain> getCommands() {
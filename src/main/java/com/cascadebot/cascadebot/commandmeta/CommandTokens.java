@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.commandmeta;
+
+import java.util.Arrays;
+
+/**
+ * A lightweight view over a raw message that splits it into a trigger and arguments on runs of spaces.
+ * Only the token offsets are stored, strings are only created when the trigger or arguments are requested.
+ */
+public final class CommandTokens {
+
+    private final String source;
+    private final int[] offsets; // Start (inclusive) and end (exclusive) pairs, the first pair is the trigger
+
+    private CommandTokens(String source, int[] offsets) {
+        this.source = source;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Tokenizes the source string from the given start index, skipping any leading spaces.
+     *
+     * @param source The raw message content.
+     * @param start  The index to start tokenizing from, usually the length of the matched prefix.
+     * @return The tokens of the message or {@code null} if there is no trigger after the start index.
+     */
+    public static CommandTokens tokenize(String source, int start) {
+        int count = 0;
+        int length = source.length();
+        for (int i = start; i < length; i++) {
+            if (source.charAt(i) != ' ' && (i == start || source.charAt(i - 1) == ' ')) {
+                count++;
+            }
+        }
+        if (count == 0) return null;
+
+        int[] offsets = new int[count * 2];
+        int token = 0;
+        int i = start;
+        while (token < count) {
+            while (source.charAt(i) == ' ') i++;
+            offsets[token * 2] = i;
+            while (i < length && source.charAt(i) != ' ') i++;
+            offsets[token * 2 + 1] = i;
+            token++;
+        }
+        return new CommandTokens(source, offsets);
+    }
+
+    public String getTrigger() {
+        return source.substring(offsets[0], offsets[1]);
+    }
+
+    public int getArgCount() {
+        return offsets.length / 2 - 1;
+    }
+
+    public String getArg(int index) {
+        return source.substring(offsets[(index + 1) * 2], offsets[(index + 1) * 2 + 1]);
+    }
+
+    public String[] getArgs() {
+        String[] args = new String[getArgCount()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = getArg(i);
+        }
+        return args;
+    }
+
+    @Override
+    public String toString() {
+        return getTrigger() + " " + Arrays.toString(getArgs());
+    }
+
+}
@@ -7,21 +7,29 @@ package com.cascadebot.cascadebot.commands.developer;
 
 import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.commandmeta.CommandContext;
+import com.cascadebot.cascadebot.commandmeta.CommandExecutor;
 import com.cascadebot.cascadebot.commandmeta.ICommandExecutable;
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
 import com.cascadebot.cascadebot.commandmeta.ICommandRestricted;
 import com.cascadebot.cascadebot.commandmeta.Module;
+import com.cascadebot.cascadebot.events.CommandListener;
+import com.cascadebot.cascadebot.messaging.ReplyQueue;
 import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.cascadebot.cascadebot.utils.FormatUtils;
 import com.cascadebot.cascadebot.utils.PasteUtils;
 import com.cascadebot.cascadebot.utils.Table;
+import com.cascadebot.cascadebot.utils.buttons.ButtonsCache;
 import com.cascadebot.cascadebot.utils.pagination.PageObjects;
+import com.cascadebot.cascadebot.utils.rest.RestScheduler;
 import com.cascadebot.shared.SecurityLevel;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.gson.GsonBuilder;
 import net.dv8tion.jda.core.entities.Member;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class DumpCommand implements ICommandRestricted {
@@ -29,7 +37,7 @@ public class DumpCommand implements ICommandRestricted {
     @Override
     public void onCommand(Member sender, CommandContext context) {
         if (context.getArgs().length < 1) {
-            context.replyDanger("Hmmm either pick: `threads`, `commands`, `permissions` or `guild`");
+            context.replyDanger("Hmmm either pick: `threads`, `commands`, `executor`, `buttons`, `replies`, `rest`, `permissions` or `guild`");
             return;
         }
         if (context.getArg(0).equalsIgnoreCase("threads")) {
@@ -46,6 +54,53 @@ public class DumpCommand implements ICommandRestricted {
                 );
             }
             PasteUtils.pasteIfLong(builder.build().toString(), 2048, context::reply);
+        } else if (context.getArg(0).equalsIgnoreCase("executor")) {
+            CommandExecutor executor = CommandListener.getCommandExecutor();
+            Table.TableBuilder builder = new Table.TableBuilder("Command", "Executions", "Rejected", "Avg wait (ms)", "Avg run (ms)");
+            executor.getCommandStats().entrySet().stream().sorted(Comparator.comparing(entry -> entry.getKey().getSimpleName())).forEach(entry -> builder.addRow(
+                    entry.getKey().getSimpleName(),
+                    String.valueOf(entry.getValue().getExecutions()),
+                    String.valueOf(entry.getValue().getRejected()),
+                    String.valueOf(FormatUtils.round(entry.getValue().getAverageWaitTime(TimeUnit.MICROSECONDS) / 1000, 2)),
+                    String.valueOf(FormatUtils.round(entry.getValue().getAverageRunTime(TimeUnit.MICROSECONDS) / 1000, 2))
+            ));
+            builder.setFooter("Queue depth: " + executor.getQueueDepth());
+            PasteUtils.pasteIfLong(builder.build().toString(), 2048, context::reply);
+        } else if (context.getArg(0).equalsIgnoreCase("buttons")) {
+            ButtonsCache buttonsCache = CascadeBot.INS.getButtonsCache();
+            CacheStats stats = buttonsCache.getStats();
+            Table.TableBuilder builder = new Table.TableBuilder("Cached groups", "Hits", "Misses", "Evictions", "Pending reaction clears", "Dropped reaction clears");
+            builder.addRow(
+                    String.valueOf(buttonsCache.getCachedGroupCount()),
+                    String.valueOf(stats.hitCount()),
+                    String.valueOf(stats.missCount()),
+                    String.valueOf(stats.evictionCount()),
+                    String.valueOf(buttonsCache.getPendingReactionClears()),
+                    String.valueOf(buttonsCache.getDroppedReactionClears())
+            );
+            context.reply(builder.build().toString());
+        } else if (context.getArg(0).equalsIgnoreCase("replies")) {
+            ReplyQueue replyQueue = CascadeBot.INS.getReplyQueue();
+            Table.TableBuilder builder = new Table.TableBuilder("Replies", "Messages sent", "Requests saved", "Delayed replies", "Avg added latency (ms)");
+            builder.addRow(
+                    String.valueOf(replyQueue.getReplies()),
+                    String.valueOf(replyQueue.getMessages()),
+                    String.valueOf(replyQueue.getRequestsSaved()),
+                    String.valueOf(replyQueue.getDelayedReplies()),
+                    String.valueOf(FormatUtils.round(replyQueue.getAverageAddedLatency(TimeUnit.MICROSECONDS) / 1000, 2))
+            );
+            context.reply(builder.build().toString());
+        } else if (context.getArg(0).equalsIgnoreCase("rest")) {
+            RestScheduler restScheduler = CascadeBot.INS.getRestScheduler();
+            Table.TableBuilder builder = new Table.TableBuilder("Lane", "Submitted", "Sent", "Dropped", "Queued");
+            restScheduler.getLaneStats().forEach((priority, stats) -> builder.addRow(
+                    priority.toString(),
+                    String.valueOf(stats.getSubmitted()),
+                    String.valueOf(stats.getSent()),
+                    String.valueOf(stats.getDropped()),
+                    String.valueOf(restScheduler.getQueued(priority))
+            ));
+            context.reply(builder.build().toString());
         } else if (context.getArg(0).equalsIgnoreCase("permissions")) {
             Table.TableBuilder builder = new Table.TableBuilder("Permission", "Discord Perms", "Default permission");
             for (CascadePermission permission : CascadeBot.INS.getPermissionsManager().getPermissions()) {
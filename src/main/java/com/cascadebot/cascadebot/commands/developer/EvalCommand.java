@@ -92,11 +92,11 @@ public class EvalCommand implements ICommandRestricted {
                 if (results.isBlank()) results = "Empty result!";
                 PasteUtils.pasteIfLong(results, 2048, context::reply);
             } catch (ScriptException e) {
-                context.replyDanger("Error running script: %s \n**%s** \n```swift\n%s```",
-                        PasteUtils.paste(PasteUtils.getStackTrace(e)),
+                PasteUtils.paste(PasteUtils.getStackTrace(e)).thenAccept(link -> context.replyDanger("Error running script: %s \n**%s** \n```swift\n%s```",
+                        link,
                         e.getClass().getName(),
                         e.getMessage()
-                );
+                ));
             }
         });
     }
@@ -12,7 +12,6 @@ import com.cascadebot.cascadebot.commandmeta.CommandContext;
 import com.cascadebot.cascadebot.commandmeta.ICommandRestricted;
 import com.cascadebot.cascadebot.commandmeta.Module;
 import com.cascadebot.cascadebot.messaging.MessageType;
-import com.cascadebot.cascadebot.messaging.MessagingObjects;
 import com.cascadebot.cascadebot.utils.ConfirmUtils;
 import com.cascadebot.shared.SecurityLevel;
 import net.dv8tion.jda.core.EmbedBuilder;
@@ -47,7 +46,7 @@ public class ShutdownCommand implements ICommandRestricted {
     }
 
     private void shutdown(CommandContext context) {
-        EmbedBuilder builder = MessagingObjects.getClearThreadLocalEmbedBuilder();
+        EmbedBuilder builder = new EmbedBuilder();
         builder.setFooter(context.getMember().getUser().getAsTag(), context.getMember().getUser().getEffectiveAvatarUrl());
         builder.setDescription("Cascade bot shutting down!");
         context.replyInfo(builder);
@@ -5,14 +5,16 @@
 
 package com.cascadebot.cascadebot.commands.fun;
 
+import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.commandmeta.CommandContext;
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
 import com.cascadebot.cascadebot.commandmeta.Module;
-import com.cascadebot.cascadebot.messaging.MessagingObjects;
 import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.cascadebot.cascadebot.utils.WebUtils;
 import com.cascadebot.cascadebot.utils.buttons.Button;
 import com.cascadebot.cascadebot.utils.buttons.ButtonGroup;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import net.dv8tion.jda.core.EmbedBuilder;
@@ -31,21 +33,24 @@ public class CatCommand implements ICommandMain {
                 }
                 try {
                     if (message.getEmbeds().size() > 0) {
-                        EmbedBuilder embedBuilder = MessagingObjects.getClearThreadLocalEmbedBuilder();
+                        EmbedBuilder embedBuilder = new EmbedBuilder();
                         embedBuilder.setImage(getCatUrl());
-                        message.editMessage(embedBuilder.build()).queue();
+                        CascadeBot.INS.getRestScheduler().queue(RestPriority.REPLY, RestRoute.EDIT_MESSAGE, channel.getIdLong(), message.editMessage(embedBuilder.build()));
                     } else {
-                        message.editMessage(getCatUrl()).queue();
+                        CascadeBot.INS.getRestScheduler().queue(RestPriority.REPLY, RestRoute.EDIT_MESSAGE, channel.getIdLong(), message.editMessage(getCatUrl()));
                     }
                 } catch (IOException e) {
-                    message.editMessage("Error loading cat picture \uD83D\uDE26" /* Frowning 😦*/).queue();
+                    CascadeBot.INS.getRestScheduler().queue(RestPriority.REPLY, RestRoute.EDIT_MESSAGE, channel.getIdLong(), message.editMessage("Error loading cat picture \uD83D\uDE26" /* Frowning 😦*/));
                 }
             }));
             try {
-                context.replyImage(getCatUrl()).queue(message -> {
+                context.replyImage(getCatUrl()).thenAccept(message -> {
                     catButtons.addButtonsToMessage(message);
                     catButtons.setMessage(message.getIdLong());
-                    context.getData().addButtonGroup(context.getChannel(), message, catButtons);
+                    CascadeBot.INS.getButtonsCache().addButtonGroup(context.getChannel(), message, catButtons);
+                }).exceptionally(throwable -> {
+                    context.replyException("Could not send the cat picture!", throwable);
+                    return null;
                 });
             } catch (IOException e) {
                 context.replyDanger("Error loading cat picture \uD83D\uDE26" /* Frowning 😦*/);
@@ -5,14 +5,16 @@
 
 package com.cascadebot.cascadebot.commands.fun;
 
+import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.commandmeta.CommandContext;
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
 import com.cascadebot.cascadebot.commandmeta.Module;
-import com.cascadebot.cascadebot.messaging.MessagingObjects;
 import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.cascadebot.cascadebot.utils.WebUtils;
 import com.cascadebot.cascadebot.utils.buttons.Button;
 import com.cascadebot.cascadebot.utils.buttons.ButtonGroup;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import net.dv8tion.jda.core.EmbedBuilder;
@@ -32,21 +34,24 @@ public class DogCommand implements ICommandMain {
             }
             try {
                 if (message.getEmbeds().size() > 0) {
-                    EmbedBuilder embedBuilder = MessagingObjects.getClearThreadLocalEmbedBuilder();
+                    EmbedBuilder embedBuilder = new EmbedBuilder();
                     embedBuilder.setImage(getDogUrl());
-                    message.editMessage(embedBuilder.build()).queue();
+                    CascadeBot.INS.getRestScheduler().queue(RestPriority.REPLY, RestRoute.EDIT_MESSAGE, channel.getIdLong(), message.editMessage(embedBuilder.build()));
                 } else {
-                    message.editMessage(getDogUrl()).queue();
+                    CascadeBot.INS.getRestScheduler().queue(RestPriority.REPLY, RestRoute.EDIT_MESSAGE, channel.getIdLong(), message.editMessage(getDogUrl()));
                 }
             } catch (IOException e) {
-                message.editMessage("Error loading dog picture \uD83D\uDE26" /* Frowning 😦*/).queue();
+                CascadeBot.INS.getRestScheduler().queue(RestPriority.REPLY, RestRoute.EDIT_MESSAGE, channel.getIdLong(), message.editMessage("Error loading dog picture \uD83D\uDE26" /* Frowning 😦*/));
             }
         }));
         try {
-            context.replyImage(getDogUrl()).queue(message -> {
+            context.replyImage(getDogUrl()).thenAccept(message -> {
                 dogButtons.addButtonsToMessage(message);
                 dogButtons.setMessage(message.getIdLong());
-                context.getData().addButtonGroup(context.getChannel(), message, dogButtons);
+                CascadeBot.INS.getButtonsCache().addButtonGroup(context.getChannel(), message, dogButtons);
+            }).exceptionally(throwable -> {
+                context.replyException("Could not send the dog picture!", throwable);
+                return null;
             });
         } catch (IOException e) {
             context.replyDanger("Error loading dog picture \uD83D\uDE26" /* Frowning 😦*/);
@@ -15,6 +15,7 @@ import com.cascadebot.cascadebot.data.objects.GuildSettings;
 import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.cascadebot.cascadebot.utils.Table;
 import com.google.common.collect.Sets;
+import de.bild.codec.annotations.Transient;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Member;
 
@@ -29,6 +30,7 @@ public class SettingsCommand implements ICommandMain {
     public void onCommand(Member sender, CommandContext context) {
         context.replyUsage(this);
         Field field = Arrays.stream(GuildSettings.class.getDeclaredFields())
+                .filter(f -> !f.isAnnotationPresent(Transient.class))
                 .filter(f -> f.getName().equalsIgnoreCase(context.getArg(0)))
                 .findFirst()
                 .orElse(null);
@@ -43,6 +45,7 @@ public class SettingsCommand implements ICommandMain {
                 } else {
                     return;
                 }
+                context.getSettings().markChanged(field.getName());
                 context.replySuccess("Setting `%s` has been set to a value of `%s`", field.getName(), context.getArg(1));
             } catch (IllegalAccessException e) {
                 context.replyException("Could not access that setting!", e);
@@ -50,6 +53,7 @@ public class SettingsCommand implements ICommandMain {
         } else if (context.getArg(0).equalsIgnoreCase("list")) {
             Table.TableBuilder tableBuilder = new Table.TableBuilder("Setting", "Current value");
             Arrays.stream(GuildSettings.class.getDeclaredFields())
+                    .filter(f -> !f.isAnnotationPresent(Transient.class))
                     .sorted(Comparator.comparing(Field::getName))
                     .forEach(f -> {
                         try {
@@ -1,10 +1,13 @@
 package com.cascadebot.cascadebot.commands.moderation;
 
+import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.commandmeta.CommandContext;
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
 import com.cascadebot.cascadebot.commandmeta.Module;
 import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.cascadebot.cascadebot.utils.DiscordUtils;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.exceptions.HierarchyException;
@@ -31,10 +34,13 @@ public class KickCommand implements ICommandMain {
             context.replyDanger("Could not find that user");
         } else {
             try {
-                context.getGuild().getController().kick(targetMember).queue(aVoid -> {
-                    context.replyInfo("%s has been kicked!", targetMember.getUser().getAsTag());
-                }, throwable -> {
-                    context.replyException("Could not kick the user %s!", throwable, targetMember.getUser().getAsTag());
+                CascadeBot.INS.getRestScheduler().submit(RestPriority.MODERATION, RestRoute.MODERATION, context.getGuild().getIdLong(),
+                        context.getGuild().getController().kick(targetMember)).whenComplete((aVoid, throwable) -> {
+                    if (throwable != null) {
+                        context.replyException("Could not kick the user %s!", throwable, targetMember.getUser().getAsTag());
+                    } else {
+                        context.replyInfo("%s has been kicked!", targetMember.getUser().getAsTag());
+                    }
                 });
             } catch (InsufficientPermissionException e) {
                 context.replyWarning("Cannot kick user " + targetMember.getUser().getAsTag() +
@@ -1,10 +1,14 @@
 package com.cascadebot.cascadebot.commands.moderation;
 
+import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.commandmeta.CommandContext;
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
 import com.cascadebot.cascadebot.commandmeta.Module;
 import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.cascadebot.cascadebot.utils.DiscordUtils;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
+import com.cascadebot.cascadebot.utils.rest.RestScheduler;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.exceptions.HierarchyException;
@@ -32,11 +36,21 @@ public class SoftBanCommand implements ICommandMain {
             try {
                 // Failure consumer to be used on both the ban and the unban
                 Consumer<Throwable> failure = throwable -> context.replyException("Could not soft-ban the user %s!", throwable, targetMember.getUser().getAsTag());
-                context.getGuild().getController().ban(targetMember.getUser(), 7).queue(aVoid -> {
+                RestScheduler scheduler = CascadeBot.INS.getRestScheduler();
+                long guildId = context.getGuild().getIdLong();
+                scheduler.submit(RestPriority.MODERATION, RestRoute.MODERATION, guildId, context.getGuild().getController().ban(targetMember.getUser(), 7)).whenComplete((aVoid, throwable) -> {
+                    if (throwable != null) {
+                        failure.accept(throwable);
+                        return;
+                    }
                     // This is considered successful if the user is banned. If the user is unable to be unbanned an exception will be thrown
                     context.replyInfo("%s has been soft-banned!", targetMember.getUser().getAsTag());
-                    context.getGuild().getController().unban(targetMember.getUser()).queue(null, failure);
-                }, failure);
+                    scheduler.submit(RestPriority.MODERATION, RestRoute.MODERATION, guildId, context.getGuild().getController().unban(targetMember.getUser()))
+                            .exceptionally(unbanThrowable -> {
+                                failure.accept(unbanThrowable);
+                                return null;
+                            });
+                });
             } catch (InsufficientPermissionException e) {
                 context.replyWarning("Cannot soft-ban user " + targetMember.getUser().getAsTag() +
                         ", missing Ban Members permission");
@@ -10,6 +10,8 @@ import com.cascadebot.cascadebot.commandmeta.CommandContext;
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
 import com.cascadebot.cascadebot.commandmeta.Module;
 import com.cascadebot.cascadebot.permissions.CascadePermission;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
 import com.cascadebot.shared.Regex;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Guild;
@@ -53,9 +55,14 @@ public class UnbanCommand implements ICommandMain {
     // TODO: Make a moderation handler that does the action, handling perms etc.
     private void unbanUser(CommandContext context, User user) {
         try {
-            context.getGuild().getController().unban(user).queue(success -> {
-                context.replySuccess("User %s has been unbanned!", user.getAsTag());
-            }, error -> context.replyException("Could not unban user %s!", error, user.getAsTag()));
+            CascadeBot.INS.getRestScheduler().submit(RestPriority.MODERATION, RestRoute.MODERATION, context.getGuild().getIdLong(),
+                    context.getGuild().getController().unban(user)).whenComplete((success, error) -> {
+                if (error != null) {
+                    context.replyException("Could not unban user %s!", error, user.getAsTag());
+                } else {
+                    context.replySuccess("User %s has been unbanned!", user.getAsTag());
+                }
+            });
         } catch (InsufficientPermissionException e) {
             context.replyDanger("Cannot unban user %s, missing %s permission!", user.getAsTag(), e.getPermission().getName());
         }
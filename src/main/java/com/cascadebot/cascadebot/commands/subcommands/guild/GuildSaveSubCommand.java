@@ -22,10 +22,10 @@ public class GuildSaveSubCommand implements ICommandExecutable {
     @Override
     public void onCommand(Member sender, CommandContext context) {
         if (context.getArgs().length == 0) {
-            GuildDataMapper.replace(context.getGuild().getIdLong(), context.getData());
+            GuildDataMapper.save(context.getData());
             context.replySuccess("Saved **this guild's** information successfully!");
         } else if (context.getArg(0).equals("all")) {
-            GuildDataMapper.getGuilds().asMap().forEach(GuildDataMapper::replace);
+            GuildDataMapper.saveDirty();
             context.replySuccess("Saved **all** guild information successfully!");
         } else {
             GuildData guildData = GuildDataMapper.getGuilds().asMap().get(Long.parseLong(context.getArg(0)));
@@ -33,7 +33,7 @@ public class GuildSaveSubCommand implements ICommandExecutable {
                 context.replyDanger("Cannot find guild to save!");
                 return;
             }
-            GuildDataMapper.replace(guildData.getGuildID(), guildData);
+            GuildDataMapper.save(guildData);
             context.replySuccess("Saved guild information for guild **" + context.getArg(0) + "**!");
         }
     }
@@ -64,6 +64,13 @@ public class Config {
 
     private String connectionString;
 
+    private int guildSaveInterval;
+    private int warmupBatchSize;
+    private int warmupConcurrency;
+
+    private int commandGuildLimit;
+    private int commandGuildQueueLimit;
+
     private int shardNum;
 
     private long officialServerId;
@@ -144,6 +151,13 @@ public class Config {
             this.ssl = warnOnDefault(config, "database.ssl", false);
         }
 
+        this.guildSaveInterval = getPositiveInt(config, "database.save_interval", 60);
+        this.warmupBatchSize = getPositiveInt(config, "database.warmup.batch_size", 500);
+        this.warmupConcurrency = getPositiveInt(config, "database.warmup.concurrency", 4);
+
+        this.commandGuildLimit = getPositiveInt(config, "commands.guild_limit", 3);
+        this.commandGuildQueueLimit = getPositiveInt(config, "commands.guild_queue_limit", 10);
+
         shardNum = warnOnDefault(config, "shard_num", -1);
 
         if (config.contains("official_server")) {
@@ -229,6 +243,15 @@ public class Config {
         }
     }
 
+    private int getPositiveInt(FileConfiguration config, String path, int defaultValue) {
+        int value = warnOnDefault(config, path, defaultValue);
+        if (value <= 0) {
+            LOG.warn("Value for key: {} must be greater than 0! Using default value: \"{}\"", path, defaultValue);
+            return defaultValue;
+        }
+        return value;
+    }
+
     public String getBotToken() {
         return botToken;
     }
@@ -285,6 +308,26 @@ public class Config {
         return connectionString;
     }
 
+    public int getGuildSaveInterval() {
+        return guildSaveInterval;
+    }
+
+    public int getWarmupBatchSize() {
+        return warmupBatchSize;
+    }
+
+    public int getWarmupConcurrency() {
+        return warmupConcurrency;
+    }
+
+    public int getCommandGuildLimit() {
+        return commandGuildLimit;
+    }
+
+    public int getCommandGuildQueueLimit() {
+        return commandGuildQueueLimit;
+    }
+
     public int getShardNum() {
         return shardNum;
     }
@@ -35,6 +35,7 @@ public class DatabaseManager {
             MongoClientSettings.getDefaultCodecRegistry(),
             CodecRegistries.fromProviders(PojoCodecProvider.builder().register(
                     "com.cascadebot.cascadebot.data.objects",
+                    "com.cascadebot.cascadebot.permissions.objects",
                     "com.cascadebot.shared"
             ).build())
     );
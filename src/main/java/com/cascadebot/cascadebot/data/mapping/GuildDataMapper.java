@@ -6,68 +6,473 @@
 package com.cascadebot.cascadebot.data.mapping;
 
 import com.cascadebot.cascadebot.CascadeBot;
+import com.cascadebot.cascadebot.commandmeta.Module;
 import com.cascadebot.cascadebot.data.database.DebugLogCallback;
 import com.cascadebot.cascadebot.data.objects.GuildData;
+import com.cascadebot.cascadebot.data.objects.GuildSettings;
 import com.cascadebot.cascadebot.events.GuildSaveListener;
+import com.cascadebot.cascadebot.permissions.objects.GuildPermissions;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
 
 public final class GuildDataMapper {
 
     public static final String COLLECTION = "guilds";
 
-    private static LoadingCache<Long, GuildData> guilds = Caffeine.newBuilder()
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    private static final String SETTINGS_PREFIX = "guildSettings.";
+
+    // Writes to the database that haven't finished yet, loads for a guild wait for these so we always read our own writes
+    private static final Map<Long, CompletableFuture<Void>> inFlightWrites = new ConcurrentHashMap<>();
+
+    // Every guild data object that is cached or was evicted and is still being saved, so there's only ever one for a guild
+    private static final RetainedObjects<GuildData> retained = new RetainedObjects<>();
+
+    private static AsyncLoadingCache<Long, GuildData> guilds = Caffeine.newBuilder()
             .expireAfterAccess(5, TimeUnit.MINUTES)
             .removalListener(new GuildSaveListener())
-            .build(id -> {
-                GuildData dbData = CascadeBot.INS.getDatabaseManager().getDatabase().getCollection(COLLECTION, GuildData.class).find(eq("_id", id)).first();
-                if (dbData == null) {
-                    CascadeBot.LOGGER.debug("Attempted to load guild data for ID: " + id + ", none was found so creating new data object");
-                    GuildData data = new GuildData(id);
-                    GuildDataMapper.insert(id, data);
-                    return data;
+            .buildAsync((id, executor) -> {
+                GuildData evicted = retained.reload(id);
+                if (evicted != null) {
+                    // The removal listener may not have saved this yet, so its changes aren't in the database
+                    return CompletableFuture.completedFuture(evicted);
                 }
+                CompletableFuture<GuildData> future = new CompletableFuture<>();
+                CompletableFuture<Void> pendingWrite = inFlightWrites.getOrDefault(id, CompletableFuture.completedFuture(null));
+                pendingWrite.whenComplete((ignored, writeThrowable) -> {
+                    try {
+                        CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
+                            database.getCollection(COLLECTION, GuildData.class).find(eq("_id", id)).first((dbData, throwable) -> {
+                                if (throwable != null) {
+                                    future.completeExceptionally(throwable);
+                                    return;
+                                }
+                                try {
+                                    if (dbData == null) {
+                                        // Guilds with only default data aren't stored, they're upserted when something first changes
+                                        CascadeBot.LOGGER.debug("Attempted to load guild data for ID: " + id + ", none was found so creating new data object");
+                                        future.complete(retained.retain(id, new GuildData(id)));
+                                        return;
+                                    }
 
-                CascadeBot.LOGGER.debug("Loaded data from database for guild ID: " + id);
-                return dbData;
+                                    CascadeBot.LOGGER.debug("Loaded data from database for guild ID: " + id);
+                                    future.complete(retained.retain(id, dbData));
+                                } catch (RuntimeException e) {
+                                    future.completeExceptionally(e);
+                                }
+                            });
+                        });
+                    } catch (RuntimeException e) {
+                        // Otherwise nothing would complete the load and every later load of the guild would wait on it
+                        future.completeExceptionally(e);
+                    }
+                });
+                return future;
             });
 
 
     public static void update(long id, Bson update) {
-        CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
-            database.getCollection(COLLECTION, GuildData.class).updateOne(eq("_id", id), update, new DebugLogCallback<>("Updated Guild ID " + id + ":", update));
-        });
+        update(id, update, null);
     }
 
-    public static void insert(long id, GuildData data) {
-        CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
-            database.getCollection(COLLECTION, GuildData.class).insertOne(data, new DebugLogCallback<>("Inserted Guild ID " + id));
-        });
+    private static CompletableFuture<Void> update(long id, Bson update, PendingSave save) {
+        CompletableFuture<Void> write = trackWrite(id);
+        DebugLogCallback<UpdateResult> callback = new DebugLogCallback<>("Updated Guild ID " + id + ":", update);
+        try {
+            CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
+                database.getCollection(COLLECTION, GuildData.class).updateOne(eq("_id", id), update, UPSERT, (result, throwable) -> {
+                    callback.onResult(result, throwable);
+                    if (save != null) {
+                        if (throwable != null) {
+                            save.restore();
+                        } else {
+                            save.release();
+                        }
+                    }
+                    write.complete(null);
+                });
+            });
+        } catch (RuntimeException e) {
+            // Otherwise the write would never complete and loads of the guild would wait on it forever
+            callback.onResult(null, e);
+            if (save != null) {
+                save.restore();
+            }
+            write.complete(null);
+        }
+        return write;
     }
 
-    public static void replace(long id, GuildData data) {
-        CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
-            database.getCollection(COLLECTION, GuildData.class).replaceOne(eq("_id", id), data, new DebugLogCallback<>("Replaced Guild ID " + id));
-        });
+    private static CompletableFuture<Void> trackWrite(long id) {
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        CompletableFuture<Void> tracked = inFlightWrites.compute(id, (key, previous) -> previous == null ? write : CompletableFuture.allOf(previous, write));
+        tracked.whenComplete((result, throwable) -> inFlightWrites.remove(id, tracked));
+        return write;
+    }
+
+    /**
+     * Saves every cached or evicted guild that has changed since it was last saved using a single unordered bulk write
+     * of {@code $set} updates. Changes to guilds that fail to save are kept for the next save.
+     */
+    public static void saveDirty() {
+        List<PendingSave> saves = takeDirtySaves();
+        if (saves.isEmpty()) return;
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (PendingSave save : saves) {
+            writes.add(trackWrite(save.data.getGuildID()));
+            ids.add(save.data.getGuildID());
+        }
+        DebugLogCallback<BulkWriteResult> callback = new DebugLogCallback<>("Saved " + saves.size() + " dirty guilds:", ids);
+        try {
+            CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
+                database.getCollection(COLLECTION, GuildData.class).bulkWrite(getWriteModels(saves), new BulkWriteOptions().ordered(false), (result, throwable) -> {
+                    callback.onResult(result, throwable);
+                    finishSaves(saves, throwable);
+                    writes.forEach(write -> write.complete(null));
+                });
+            });
+        } catch (RuntimeException e) {
+            // Otherwise the writes would never complete and loads of these guilds would wait on them forever
+            callback.onResult(null, e);
+            finishSaves(saves, e);
+            writes.forEach(write -> write.complete(null));
+        }
+    }
+
+    /**
+     * Waits for the writes that have already been sent to the database, such as saves of evicted guilds, to finish.
+     *
+     * @param timeout The max amount of time to wait.
+     * @param unit    The unit of the timeout.
+     * @return {@code true} if every write finished, {@code false} if the timeout was reached first.
+     */
+    public static boolean awaitWrites(long timeout, TimeUnit unit) {
+        CompletableFuture<?>[] writes = inFlightWrites.values().toArray(new CompletableFuture[0]);
+        try {
+            CompletableFuture.allOf(writes).get(timeout, unit);
+            return true;
+        } catch (ExecutionException e) {
+            return true; // Failed writes are logged and keep their changes for the next save
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Saves every cached guild that has changed since it was last saved in a single blocking bulk write.
+     * This is used when shutting down so all data is written before we exit.
+     */
+    public static void saveDirtySync() {
+        List<PendingSave> saves = takeDirtySaves();
+        if (saves.isEmpty()) return;
+        try {
+            CascadeBot.INS.getDatabaseManager().runTask(database -> {
+                database.getCollection(COLLECTION, GuildData.class).bulkWrite(getWriteModels(saves), new BulkWriteOptions().ordered(false));
+            });
+        } catch (RuntimeException e) {
+            finishSaves(saves, e);
+            throw e;
+        }
+        finishSaves(saves, null);
+    }
+
+    private static List<PendingSave> takeDirtySaves() {
+        List<PendingSave> saves = new ArrayList<>();
+        for (GuildData data : retained.values()) {
+            if (!data.isDirty()) continue;
+            try {
+                saves.add(takeSave(data));
+            } catch (RuntimeException e) {
+                // The guild keeps its changes, this mustn't stop the other guilds from being saved
+                CascadeBot.LOGGER.error("Failed to encode the changes of guild ID: " + data.getGuildID(), e);
+            }
+        }
+        return saves;
+    }
+
+    private static List<WriteModel<GuildData>> getWriteModels(List<PendingSave> saves) {
+        List<WriteModel<GuildData>> updates = new ArrayList<>(saves.size());
+        for (PendingSave save : saves) {
+            updates.add(new UpdateOneModel<>(eq("_id", save.data.getGuildID()), save.update, UPSERT));
+        }
+        return updates;
+    }
+
+    /**
+     * Keeps the changes of the saves that failed for the next save, and releases evicted guilds whose saves succeeded.
+     *
+     * @param saves     The saves in the order they were written.
+     * @param throwable The error from the write or {@code null} if every save succeeded.
+     */
+    private static void finishSaves(List<PendingSave> saves, Throwable throwable) {
+        boolean[] failed = new boolean[saves.size()];
+        if (throwable instanceof MongoBulkWriteException) {
+            // The write was unordered so only the updates with errors failed, the rest were written
+            for (BulkWriteError error : ((MongoBulkWriteException) throwable).getWriteErrors()) {
+                failed[error.getIndex()] = true;
+            }
+        } else if (throwable != null) {
+            Arrays.fill(failed, true);
+        }
+        for (int i = 0; i < saves.size(); i++) {
+            if (failed[i]) {
+                saves.get(i).restore();
+            } else {
+                saves.get(i).release();
+            }
+        }
+    }
+
+    /**
+     * Saves the fields of the guild data that have changed since it was last saved, if any.
+     * If the save fails the changes are kept for the next save.
+     *
+     * @param data The guild data to save.
+     * @return A future that completes once the save has finished, whether or not it failed.
+     */
+    public static CompletableFuture<Void> save(GuildData data) {
+        if (!data.isDirty()) return CompletableFuture.completedFuture(null);
+        PendingSave save = takeSave(data);
+        return update(data.getGuildID(), save.update, save);
+    }
+
+    /**
+     * Saves guild data that has been evicted from the cache, and stops holding on to it once the save has finished.
+     * Until then loading the guild gets this same object back.
+     *
+     * @param data The evicted guild data.
+     */
+    public static void saveEvicted(GuildData data) {
+        long id = data.getGuildID();
+        save(data).whenComplete((ignored, throwable) -> retained.release(id, data, data.isDirty()));
     }
 
-    public static void replaceSync(long id, GuildData data) {
-        CascadeBot.INS.getDatabaseManager().runTask(database -> {
-            database.getCollection(COLLECTION, GuildData.class).replaceOne(eq("_id", id), data);
+    private static PendingSave takeSave(GuildData data) {
+        Set<String> changedFields = data.takeChangedFields();
+        boolean firstSave = data.markStored();
+        try {
+            return new PendingSave(data, changedFields, firstSave, getUpdate(data, changedFields, firstSave));
+        } catch (RuntimeException e) {
+            data.restoreChangedFields(changedFields, firstSave);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a {@code $set} update containing only the given changed fields of the guild data. Only the changed
+     * fields are encoded, unless the guild has never been stored in which case every field is set so the upsert
+     * creates the full document.
+     *
+     * @param data          The guild data to create the update for.
+     * @param changedFields The dotted document paths of the changed fields.
+     * @param firstSave     Whether this is the first time the guild data is stored.
+     * @return The {@code $set} update for this guild.
+     */
+    private static Bson getUpdate(GuildData data, Set<String> changedFields, boolean firstSave) {
+        CodecRegistry registry = CascadeBot.INS.getDatabaseManager().getCodecRegistry();
+        if (firstSave) {
+            BsonDocument document = encode(registry, GuildData.class, data);
+            document.remove("_id");
+            return new BsonDocument("$set", document);
+        }
+
+        data.preSave(); // Encoding the whole document would do this for us
+        BsonDocument set = new BsonDocument("stateLock", encodeValue(registry, UUID.class, data.getStateLock()));
+        BsonDocument settings = null;
+        for (String field : changedFields) {
+            BsonValue value;
+            if (field.startsWith(SETTINGS_PREFIX)) {
+                if (settings == null) {
+                    settings = encode(registry, GuildSettings.class, data.getSettings());
+                }
+                value = settings.get(field.substring(SETTINGS_PREFIX.length()));
+            } else {
+                value = encodeField(registry, data, field);
+            }
+            if (value != null) {
+                set.put(field, value);
+            }
+        }
+        return new BsonDocument("$set", set);
+    }
+
+    private static BsonValue encodeField(CodecRegistry registry, GuildData data, String field) {
+        switch (field) {
+            case "prefix":
+                return new BsonString(data.getPrefix());
+            case "enabledModules":
+                BsonArray modules = new BsonArray();
+                for (Module module : data.getEnabledModules()) {
+                    modules.add(new BsonString(module.name()));
+                }
+                return modules;
+            case "guildPermissions":
+                return encode(registry, GuildPermissions.class, data.getPermissions());
+            case "commandInfo":
+                // Command info is keyed by class which only the guild data codec knows how to encode
+                return encode(registry, GuildData.class, data).get("commandInfo");
+            default:
+                throw new IllegalArgumentException("No encoding for changed guild data field: " + field);
+        }
+    }
+
+    private static <T> BsonDocument encode(CodecRegistry registry, Class<T> type, T value) {
+        BsonDocument document = new BsonDocument();
+        registry.get(type).encode(new BsonDocumentWriter(document), value, EncoderContext.builder().isEncodingCollectibleDocument(true).build());
+        return document;
+    }
+
+    private static <T> BsonValue encodeValue(CodecRegistry registry, Class<T> type, T value) {
+        // Values can't be written at the top level so write them as a field of a wrapper document
+        BsonDocument document = new BsonDocument();
+        BsonDocumentWriter writer = new BsonDocumentWriter(document);
+        writer.writeStartDocument();
+        writer.writeName("value");
+        registry.get(type).encode(writer, value, EncoderContext.builder().build());
+        writer.writeEndDocument();
+        return document.get("value");
+    }
+
+    /**
+     * Loads the guild data for the given guilds into the cache using batched {@code $in} queries on the async client.
+     * Guilds that are already cached or have no data in the database are skipped.
+     *
+     * @param ids         The IDs of the guilds to load.
+     * @param batchSize   The max amount of guilds to load in one query.
+     * @param concurrency The max amount of queries to have running at once.
+     */
+    public static void warmCache(Collection<Long> ids, int batchSize, int concurrency) {
+        if (batchSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("The batch size and concurrency must be greater than 0!");
+        }
+        List<Long> toLoad = ids.stream().filter(id -> !guilds.synchronous().asMap().containsKey(id)).collect(Collectors.toList());
+        if (toLoad.isEmpty()) return;
+        List<List<Long>> batches = Lists.partition(toLoad, batchSize);
+        AtomicInteger nextBatch = new AtomicInteger(0);
+        AtomicInteger loaded = new AtomicInteger(0);
+        AtomicInteger running = new AtomicInteger(Math.min(concurrency, batches.size()));
+        long startTime = System.currentTimeMillis();
+        Runnable onFinish = () -> CascadeBot.LOGGER.info("Warmed guild cache with {} guilds in {}ms.", loaded.get(), System.currentTimeMillis() - startTime);
+        for (int i = 0; i < running.get(); i++) {
+            loadNextBatch(batches, nextBatch, loaded, running, onFinish);
+        }
+    }
+
+    private static void loadNextBatch(List<List<Long>> batches, AtomicInteger nextBatch, AtomicInteger loaded, AtomicInteger running, Runnable onFinish) {
+        int index = nextBatch.getAndIncrement();
+        if (index >= batches.size()) {
+            if (running.decrementAndGet() == 0) {
+                onFinish.run();
+            }
+            return;
+        }
+        CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
+            database.getCollection(COLLECTION, GuildData.class).find(in("_id", batches.get(index))).forEach(data -> {
+                // Guilds that were evicted and loaded again while we were querying already have data retained
+                if (retained.retain(data.getGuildID(), data) == data && guilds.synchronous().asMap().putIfAbsent(data.getGuildID(), data) == null) {
+                    loaded.incrementAndGet();
+                }
+            }, (result, throwable) -> {
+                if (throwable != null) {
+                    CascadeBot.LOGGER.error("Error warming the guild cache", throwable);
+                }
+                loadNextBatch(batches, nextBatch, loaded, running, onFinish);
+            });
         });
     }
 
+    /**
+     * Gets the guild data for a guild, blocking until it has loaded if it isn't cached.
+     * This shouldn't be used on JDA event threads, use {@link #getGuildDataAsync(long)} instead.
+     *
+     * @param id The ID of the guild.
+     * @return The guild data for the guild.
+     */
     public static GuildData getGuildData(long id) {
+        return guilds.synchronous().get(id);
+    }
+
+    /**
+     * Gets the guild data for a guild, loading it from the database on the async client if it isn't cached.
+     * If the guild is cached the returned future will already be complete.
+     *
+     * @param id The ID of the guild.
+     * @return A future that completes with the guild data for the guild.
+     */
+    public static CompletableFuture<GuildData> getGuildDataAsync(long id) {
         return guilds.get(id);
     }
 
     public static LoadingCache<Long, GuildData> getGuilds() {
-        return guilds;
+        return guilds.synchronous();
+    }
+
+    private static class PendingSave {
+
+        private final GuildData data;
+        private final Set<String> changedFields;
+        private final boolean firstSave;
+        private final Bson update;
+
+        private PendingSave(GuildData data, Set<String> changedFields, boolean firstSave, Bson update) {
+            this.data = data;
+            this.changedFields = changedFields;
+            this.firstSave = firstSave;
+            this.update = update;
+        }
+
+        private void restore() {
+            data.restoreChangedFields(changedFields, firstSave);
+        }
+
+        /**
+         * Stops retaining the guild if it was evicted and only kept because an earlier save of it failed.
+         */
+        private void release() {
+            retained.releaseSaved(data.getGuildID(), data, data.isDirty());
+        }
+
     }
 
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.data.mapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the one live object for each ID while it is cached and while it is still being saved after being evicted.
+ * <p>
+ * Caffeine only tells us about an eviction after the entry is gone, so anything loaded for that ID in the meantime
+ * would otherwise be read from the database before the evicted object's changes are written, or be a blank copy that
+ * overwrites them. Loads check here first and get the evicted object back instead.
+ *
+ * @param <V> The type of the objects.
+ */
+class RetainedObjects<V> {
+
+    private final Map<Long, Retained<V>> objects = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the retained object for an ID so it can be cached again.
+     *
+     * @param id The ID to get the object for.
+     * @return The retained object, or {@code null} if there isn't one and the object should be loaded.
+     */
+    V reload(long id) {
+        Retained<V> retained = objects.computeIfPresent(id, (key, existing) -> {
+            if (existing.releasePending) {
+                existing.releasePending = false; // Its eviction save already finished, it's released when next evicted
+            } else {
+                existing.reloaded = true;
+            }
+            return existing;
+        });
+        return retained == null ? null : retained.value;
+    }
+
+    /**
+     * Retains a newly loaded object, unless an object is already retained for its ID.
+     *
+     * @param id    The ID of the object.
+     * @param value The newly loaded object.
+     * @return The object that should be used for the ID, which is the already retained object if there is one.
+     */
+    V retain(long id, V value) {
+        return objects.computeIfAbsent(id, key -> new Retained<>(value)).value;
+    }
+
+    /**
+     * Stops retaining an evicted object once its save has finished. The object is kept if it was loaded again after
+     * it was evicted. If it still has changes because the save failed it's kept so the next load picks those up, and
+     * is released by {@link #releaseSaved(long, Object, boolean)} once a later save succeeds.
+     *
+     * @param id      The ID of the object.
+     * @param value   The evicted object.
+     * @param unsaved Whether the object still has changes that haven't been saved.
+     */
+    void release(long id, V value, boolean unsaved) {
+        objects.computeIfPresent(id, (key, existing) -> {
+            if (existing.value != value) return existing;
+            if (existing.reloaded) {
+                existing.reloaded = false; // It's cached again, so it'll be released when it's next evicted
+                return existing;
+            }
+            if (unsaved) {
+                existing.releasePending = true;
+                return existing;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Stops retaining an evicted object whose eviction save failed, now that it has been saved. Objects that are
+     * cached are kept.
+     *
+     * @param id      The ID of the object.
+     * @param value   The saved object.
+     * @param unsaved Whether the object has changed again since it was saved.
+     */
+    void releaseSaved(long id, V value, boolean unsaved) {
+        objects.computeIfPresent(id, (key, existing) -> existing.value == value && existing.releasePending && !unsaved ? null : existing);
+    }
+
+    /**
+     * Gets a snapshot of every retained object, including evicted objects that haven't been released yet.
+     *
+     * @return The retained objects.
+     */
+    List<V> values() {
+        List<V> values = new ArrayList<>(objects.size());
+        for (Retained<V> retained : objects.values()) {
+            values.add(retained.value);
+        }
+        return values;
+    }
+
+    int size() {
+        return objects.size();
+    }
+
+    private static class Retained<V> {
+
+        private final V value;
+        // Only accessed inside compute calls on the map
+        private boolean reloaded; // Loaded again before its eviction save finished
+        private boolean releasePending; // Evicted but its save failed, so it's waiting for a later save
+
+        private Retained(V value) {
+            this.value = value;
+        }
+
+    }
+
+}
@@ -6,6 +6,8 @@
 package com.cascadebot.cascadebot.data.objects;
 
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
+import com.google.common.collect.Sets;
+import de.bild.codec.annotations.Transient;
 
 import java.util.Set;
 
@@ -17,14 +19,18 @@ public class GuildCommandInfo {
     private String defaultCommand;
     private Set<String> aliases;
 
+    @Transient
+    private volatile boolean changed = false;
+
     private GuildCommandInfo() {} // For mongodb object serialisation
 
     public GuildCommandInfo(ICommandMain command) {
         this.command = command.command();
         this.defaultCommand = command.command();
         this.forceDefault = command.forceDefault();
-        this.aliases = command.getGlobalAliases();
+        this.aliases = Sets.newConcurrentHashSet(command.getGlobalAliases()); // Copied so guild aliases don't change the global ones
         this.enabled = true;
+        this.changed = true;
     }
 
     public GuildCommandInfo(String command, String defaultCommand, Set<String> aliases, boolean enabled, boolean forceDefault) {
@@ -33,6 +39,7 @@ public class GuildCommandInfo {
         this.aliases = aliases;
         this.enabled = enabled;
         this.forceDefault = forceDefault;
+        this.changed = true;
     }
 
     public String getCommand() {
@@ -43,6 +50,7 @@ public class GuildCommandInfo {
         if (this.forceDefault)
             throw new UnsupportedOperationException("This command's main command cannot be changed!");
         this.command = command;
+        this.changed = true;
         return this;
     }
 
@@ -51,15 +59,20 @@ public class GuildCommandInfo {
     }
 
     public boolean addAlias(String alias) {
-        return this.aliases.add(alias);
+        boolean added = this.aliases.add(alias);
+        if (added) this.changed = true;
+        return added;
     }
 
     public boolean removeAlias(String alias) {
-        return this.aliases.remove(alias);
+        boolean removed = this.aliases.remove(alias);
+        if (removed) this.changed = true;
+        return removed;
     }
 
     public GuildCommandInfo setAliases(Set<String> aliases) {
         this.aliases = aliases;
+        this.changed = true;
         return this;
     }
 
@@ -69,6 +82,7 @@ public class GuildCommandInfo {
 
     public GuildCommandInfo setEnabled(boolean enabled) {
         this.enabled = enabled;
+        this.changed = true;
         return this;
     }
 
@@ -76,4 +90,19 @@ public class GuildCommandInfo {
         return defaultCommand;
     }
 
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Clears whether this command info has changed since the last save.
+     *
+     * @return Whether this command info had changed.
+     */
+    public boolean takeChanged() {
+        boolean wasChanged = changed;
+        changed = false;
+        return wasChanged;
+    }
+
 }
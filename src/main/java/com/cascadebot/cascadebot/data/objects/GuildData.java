@@ -10,25 +10,27 @@ import com.cascadebot.cascadebot.Constants;
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
 import com.cascadebot.cascadebot.commandmeta.Module;
 import com.cascadebot.cascadebot.data.Config;
-import com.cascadebot.cascadebot.utils.buttons.ButtonGroup;
-import com.cascadebot.cascadebot.utils.buttons.ButtonsCache;
-import com.cascadebot.cascadebot.utils.pagination.PageCache;
+import com.cascadebot.cascadebot.permissions.objects.GuildPermissions;
 import com.cascadebot.shared.Version;
 import com.google.common.collect.Sets;
 import de.bild.codec.annotations.Id;
 import de.bild.codec.annotations.PreSave;
 import de.bild.codec.annotations.Transient;
-import net.dv8tion.jda.core.entities.Message;
-import net.dv8tion.jda.core.entities.MessageChannel;
 import org.bson.codecs.pojo.annotations.BsonDiscriminator;
 import org.bson.codecs.pojo.annotations.BsonIgnore;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @BsonDiscriminator
 public class GuildData {
@@ -54,12 +56,20 @@ public class GuildData {
 
     private GuildSettings guildSettings = new GuildSettings();
 
+    private GuildPermissions guildPermissions = new GuildPermissions();
+
     //region Transient fields
     @Transient
-    private ButtonsCache buttonsCache = new ButtonsCache(5);
+    private volatile TriggerIndex commandTriggers; // Lazily built by getCommandTriggers, stale once its generation is behind
+
+    @Transient
+    private final AtomicLong triggersGeneration = new AtomicLong(); // Bumped whenever the trigger index needs rebuilding
+
+    @Transient
+    private final Set<String> changedFields = ConcurrentHashMap.newKeySet(); // Fields changed since this was last saved
 
     @Transient
-    private PageCache pageCache = new PageCache();
+    private final AtomicBoolean stored = new AtomicBoolean(true); // False for new guilds until their first save
     //endregion
 
     private GuildData() {} // This is for mongodb object serialisation
@@ -71,13 +81,15 @@ public class GuildData {
 
     public GuildData(long guildID) {
         this.guildID = guildID;
+        this.stored.set(false);
     }
 
     //region Commands
     public void enableCommand(ICommandMain command) {
         if (!command.getModule().isPublicModule()) return;
-        if (commandInfo.contains(command.getClass())) {
+        if (commandInfo.containsKey(command.getClass())) {
             commandInfo.get(command.getClass()).setEnabled(true);
+            invalidateCommandTriggers();
         }
     }
 
@@ -90,6 +102,7 @@ public class GuildData {
     public void disableCommand(ICommandMain command) {
         if (!command.getModule().isPublicModule()) return;
         commandInfo.computeIfAbsent(command.getClass(), aClass -> new GuildCommandInfo(command)).setEnabled(false);
+        invalidateCommandTriggers();
     }
 
     public void disableCommandByType(Module module) {
@@ -100,7 +113,7 @@ public class GuildData {
     }
 
     public boolean isCommandEnabled(ICommandMain command) {
-        if (commandInfo.contains(command.getClass())) {
+        if (commandInfo.containsKey(command.getClass())) {
             return commandInfo.get(command.getClass()).isEnabled();
         }
         return true;
@@ -115,7 +128,7 @@ public class GuildData {
     }
 
     public String getCommandName(ICommandMain command) {
-        if (commandInfo.contains(command.getClass())) {
+        if (commandInfo.containsKey(command.getClass())) {
             return commandInfo.get(command.getClass()).getCommand();
         }
         return command.command();
@@ -123,10 +136,11 @@ public class GuildData {
 
     public void setCommandName(ICommandMain command, String commandName) {
         getGuildCommandInfo(command).setCommand(commandName);
+        invalidateCommandTriggers();
     }
 
     public Set<String> getCommandAliases(ICommandMain command) {
-        if (commandInfo.contains(command.getClass())) {
+        if (commandInfo.containsKey(command.getClass())) {
             return getGuildCommandInfo(command).getAliases();
         }
         return command.getGlobalAliases();
@@ -134,11 +148,13 @@ public class GuildData {
 
     public boolean addAlias(ICommandMain command, String alias) {
         boolean success = getGuildCommandInfo(command).addAlias(alias);
+        if (success) invalidateCommandTriggers();
         return success;
     }
 
     public boolean removeAlias(ICommandMain command, String alias) {
         boolean success = getGuildCommandInfo(command).removeAlias(alias);
+        if (success) invalidateCommandTriggers();
         return success;
     }
 
@@ -150,6 +166,27 @@ public class GuildData {
     public ConcurrentHashMap<Class<? extends ICommandMain>, GuildCommandInfo> getCommandInfo() {
         return commandInfo;
     }
+
+    /**
+     * Gets the immutable lower-cased trigger to command index for this guild, building it if it has been invalidated.
+     *
+     * @return The trigger index for this guild.
+     * @see com.cascadebot.cascadebot.commandmeta.CommandManager#buildTriggerIndex(GuildData)
+     */
+    public Map<String, ICommandMain> getCommandTriggers() {
+        // Read the generation before building so an invalidation during the build leaves the new index stale
+        long generation = triggersGeneration.get();
+        TriggerIndex index = commandTriggers;
+        if (index == null || index.generation != generation) {
+            index = new TriggerIndex(generation, CascadeBot.INS.getCommandManager().buildTriggerIndex(this));
+            commandTriggers = index;
+        }
+        return index.triggers;
+    }
+
+    private void invalidateCommandTriggers() {
+        triggersGeneration.incrementAndGet();
+    }
     //endregion
 
     //region Modules
@@ -158,15 +195,19 @@ public class GuildData {
             throw new IllegalArgumentException("This module is not available to be enabled!");
         }
         this.enabledModules.add(module);
+        invalidateCommandTriggers();
+        markChanged("enabledModules");
     }
 
     public void disableModule(Module module) {
         if (!module.isPublicModule()) {
             throw new IllegalArgumentException("This module is not available to be disabled!");
         } else if (Module.CORE_MODULES.contains(module)) {
-            throw new IllegalArgumentException(String.format("Cannot disable the %s module!", module.toString().toLowerCase()));
+            throw new IllegalArgumentException(String.format("Cannot disable the %s module!", module.toString().toLowerCase(Locale.ROOT)));
         }
         this.enabledModules.remove(module);
+        invalidateCommandTriggers();
+        markChanged("enabledModules");
     }
 
     public boolean isModuleEnabled(Module module) {
@@ -174,11 +215,6 @@ public class GuildData {
     }
     //endregion
 
-    public void addButtonGroup(MessageChannel channel, Message message, ButtonGroup group) {
-        group.setMessage(message.getIdLong());
-        buttonsCache.put(channel.getIdLong(), message.getIdLong(), group);
-    }
-
     //region Getters and setters
     public long getGuildID() {
         return guildID;
@@ -188,8 +224,8 @@ public class GuildData {
         return guildSettings;
     }
 
-    public ButtonsCache getButtonsCache() {
-        return buttonsCache;
+    public GuildPermissions getPermissions() {
+        return guildPermissions;
     }
 
     public Collection<GuildCommandInfo> getGuildCommandInfos() {
@@ -200,8 +236,8 @@ public class GuildData {
         return Collections.unmodifiableSet(enabledModules);
     }
 
-    public PageCache getPageCache() {
-        return pageCache;
+    public UUID getStateLock() {
+        return stateLock;
     }
 
     public Date getCreationDate() {
@@ -214,8 +250,92 @@ public class GuildData {
 
     public void setPrefix(String prefix) {
         this.prefix = prefix;
+        markChanged("prefix");
     }
 
     //endregion
 
+    //region Change tracking
+    private void markChanged(String field) {
+        changedFields.add(field);
+    }
+
+    /**
+     * Whether this guild data, its settings, permissions or command info have changed since they were last saved.
+     *
+     * @return {@code true} if this guild data needs saving.
+     */
+    public boolean isDirty() {
+        return !changedFields.isEmpty() || guildSettings.isChanged() || guildPermissions.isChanged() || commandInfo.values().stream().anyMatch(GuildCommandInfo::isChanged);
+    }
+
+    /**
+     * Gets the document paths of every field that has changed since this was last saved and clears them.
+     * This should be called <i>before</i> the data is encoded to be saved so that changes made while saving
+     * will be tracked for the next save.
+     *
+     * @return The dotted document paths of the changed fields.
+     */
+    public Set<String> takeChangedFields() {
+        Set<String> fields = new HashSet<>();
+        drainTo(changedFields, fields);
+        for (String setting : guildSettings.takeChangedSettings()) {
+            fields.add("guildSettings." + setting);
+        }
+        if (guildPermissions.takeChanged()) {
+            fields.add("guildPermissions");
+        }
+        boolean commandInfoChanged = false;
+        for (GuildCommandInfo info : commandInfo.values()) {
+            commandInfoChanged |= info.takeChanged();
+        }
+        if (commandInfoChanged) {
+            fields.add("commandInfo"); // Command info is keyed by class so is always saved as a whole
+        }
+        return fields;
+    }
+
+    /**
+     * Marks this guild data as stored in the database.
+     *
+     * @return {@code true} if this is the first time the guild data has been stored.
+     */
+    public boolean markStored() {
+        return stored.compareAndSet(false, true);
+    }
+
+    /**
+     * Puts back changes taken by {@link #takeChangedFields()} after saving them failed, so they are saved again
+     * on the next save.
+     *
+     * @param fields    The dotted document paths that failed to save.
+     * @param firstSave Whether the failed save was the first save, in which case this is marked as not stored again.
+     */
+    public void restoreChangedFields(Set<String> fields, boolean firstSave) {
+        changedFields.addAll(fields);
+        if (firstSave) {
+            stored.set(false);
+        }
+    }
+
+    private static void drainTo(Set<String> from, Set<String> to) {
+        for (Iterator<String> iterator = from.iterator(); iterator.hasNext(); ) {
+            to.add(iterator.next());
+            iterator.remove();
+        }
+    }
+    //endregion
+
+    private static class TriggerIndex {
+
+        private final long generation;
+        private final Map<String, ICommandMain> triggers;
+
+        private TriggerIndex(long generation, Map<String, ICommandMain> triggers) {
+            this.generation = generation;
+            this.triggers = triggers;
+        }
+
+    }
+
 }
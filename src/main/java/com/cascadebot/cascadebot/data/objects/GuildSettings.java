@@ -5,7 +5,12 @@
 
 package com.cascadebot.cascadebot.data.objects;
 
-import com.cascadebot.cascadebot.data.Config;
+import de.bild.codec.annotations.Transient;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GuildSettings {
 
@@ -17,12 +22,16 @@ public class GuildSettings {
     private boolean showModuleErrors = false;
     //endregion
 
+    @Transient
+    private final Set<String> changedSettings = ConcurrentHashMap.newKeySet();
+
     public boolean isMentionPrefix() {
         return mentionPrefix;
     }
 
     public void setMentionPrefix(boolean mentionPrefix) {
         this.mentionPrefix = mentionPrefix;
+        markChanged("mentionPrefix");
     }
 
     public boolean willDeleteCommand() {
@@ -31,6 +40,7 @@ public class GuildSettings {
 
     public void setDeleteCommand(boolean deleteCommand) {
         this.deleteCommand = deleteCommand;
+        markChanged("deleteCommand");
     }
 
     public boolean useEmbedForMessages() {
@@ -39,6 +49,7 @@ public class GuildSettings {
 
     public void setUseEmbedForMessages(boolean useEmbedForMessages) {
         this.useEmbedForMessages = useEmbedForMessages;
+        markChanged("useEmbedForMessages");
     }
 
     public boolean willShowPermErrors() {
@@ -47,6 +58,7 @@ public class GuildSettings {
 
     public void setShowPermErrors(boolean showPermErrors) {
         this.showPermErrors = showPermErrors;
+        markChanged("showPermErrors");
     }
 
     public boolean willDisplayModuleErrors() {
@@ -55,6 +67,34 @@ public class GuildSettings {
 
     public void setShowModuleErrors(boolean showModuleErrors) {
         this.showModuleErrors = showModuleErrors;
+        markChanged("showModuleErrors");
+    }
+
+    public boolean isChanged() {
+        return !changedSettings.isEmpty();
+    }
+
+    /**
+     * Marks a setting as changed so it will be included the next time the guild is saved.
+     *
+     * @param setting The field name of the setting that changed.
+     */
+    public void markChanged(String setting) {
+        changedSettings.add(setting);
+    }
+
+    /**
+     * Gets the field names of the settings changed since the last save and clears them.
+     *
+     * @return The names of the changed settings.
+     */
+    public Set<String> takeChangedSettings() {
+        Set<String> settings = new HashSet<>();
+        for (Iterator<String> iterator = changedSettings.iterator(); iterator.hasNext(); ) {
+            settings.add(iterator.next());
+            iterator.remove();
+        }
+        return settings;
     }
 
 }
@@ -5,48 +5,84 @@
 
 package com.cascadebot.cascadebot.events;
 
-import com.cascadebot.cascadebot.data.mapping.GuildDataMapper;
-import com.cascadebot.cascadebot.data.objects.GuildData;
+import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.utils.buttons.ButtonGroup;
-import com.cascadebot.cascadebot.utils.buttons.ButtonsCache;
+import com.cascadebot.cascadebot.utils.buttons.ReactionRemover;
 import net.dv8tion.jda.core.entities.ChannelType;
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageReaction;
 import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.events.channel.text.TextChannelDeleteEvent;
+import net.dv8tion.jda.core.events.guild.GuildLeaveEvent;
 import net.dv8tion.jda.core.events.message.MessageDeleteEvent;
 import net.dv8tion.jda.core.events.message.react.MessageReactionAddEvent;
+import net.dv8tion.jda.core.events.message.react.MessageReactionRemoveEvent;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
 
 public class ButtonEventListener extends ListenerAdapter {
 
+    private final ReactionRemover reactionRemover = new ReactionRemover(1500);
+
     @Override
     public void onMessageReactionAdd(MessageReactionAddEvent e) {
         if (e.getMember().equals(e.getGuild().getSelfMember())) {
             return;
         }
         if (e.getChannel().getType().equals(ChannelType.TEXT)) {
-            TextChannel channel = (TextChannel) e.getChannel();
-            GuildData data = GuildDataMapper.getGuildData(channel.getGuild().getIdLong());
-            ButtonsCache cache = data.getButtonsCache();
-            if (cache.containsKey(channel.getIdLong())) {
-                if (cache.get(channel.getIdLong()).containsKey(e.getMessageIdLong())) {
-                    ButtonGroup group = cache.get(channel.getIdLong()).get(e.getMessageIdLong());
-                    e.getChannel().getMessageById(e.getMessageId()).queue(message -> group.handleButton(e.getMember(), channel, message, e.getReactionEmote()));
-                    e.getReaction().removeReaction(e.getMember().getUser()).queue(); //Idk if we want to allow other reactions on the message
-                    //TODO perms checking
-                }
+            ButtonGroup group = CascadeBot.INS.getButtonsCache().get(e.getChannel().getIdLong(), e.getMessageIdLong());
+            if (group != null) {
+                handleClick(group, (TextChannel) e.getChannel(), e.getMember(), e.getMessageIdLong(), e.getReactionEmote());
+                reactionRemover.queue(group, e.getReaction(), e.getUser()); //Idk if we want to allow other reactions on the message
+                //TODO perms checking
             }
         }
     }
 
+    @Override
+    public void onMessageReactionRemove(MessageReactionRemoveEvent e) {
+        if (!e.getChannel().getType().equals(ChannelType.TEXT) || e.getMember() == null || e.getUser().equals(e.getJDA().getSelfUser())) {
+            return;
+        }
+        ButtonGroup group = CascadeBot.INS.getButtonsCache().get(e.getChannel().getIdLong(), e.getMessageIdLong());
+        // Only a click if the reaction hadn't been removed by us yet, otherwise this is our own removal
+        if (group != null && reactionRemover.cancel(e.getMessageIdLong(), e.getReaction(), e.getUser())) {
+            handleClick(group, (TextChannel) e.getChannel(), e.getMember(), e.getMessageIdLong(), e.getReactionEmote());
+        }
+    }
+
+    private void handleClick(ButtonGroup group, TextChannel channel, Member clicker, long messageId, MessageReaction.ReactionEmote emote) {
+        Message message = group.getMessage();
+        if (message != null) {
+            group.handleButton(clicker, channel, message, emote);
+        } else {
+            channel.getMessageById(messageId).submit().thenAcceptAsync(fetchedMessage -> {
+                group.setMessage(fetchedMessage);
+                group.handleButton(clicker, channel, fetchedMessage, emote);
+            }, CommandListener.getCommandExecutor().getExecutor()).exceptionally(throwable -> {
+                CascadeBot.LOGGER.warn("Failed to handle button click on message ID: " + messageId, throwable);
+                return null;
+            });
+        }
+    }
+
     @Override
     public void onMessageDelete(MessageDeleteEvent e) {
         if (e.getChannel().getType().equals(ChannelType.TEXT)) {
-            TextChannel channel = (TextChannel) e.getChannel();
-            GuildData data = GuildDataMapper.getGuildData(channel.getGuild().getIdLong());
-            ButtonsCache cache = data.getButtonsCache();
-            if (cache.containsKey(channel.getIdLong())) {
-                cache.get(channel.getIdLong()).remove(e.getMessageIdLong());
-            }
+            CascadeBot.INS.getButtonsCache().remove(e.getChannel().getIdLong(), e.getMessageIdLong());
+            reactionRemover.cancelAll(e.getMessageIdLong());
         }
+        CascadeBot.INS.getPageCache().remove(e.getMessageIdLong());
+    }
+
+    @Override
+    public void onTextChannelDelete(TextChannelDeleteEvent e) {
+        CascadeBot.INS.getButtonsCache().removeChannel(e.getChannel().getIdLong());
+    }
+
+    @Override
+    public void onGuildLeave(GuildLeaveEvent e) {
+        CascadeBot.INS.getPageCache().removeGuild(e.getGuild().getIdLong());
     }
 
 }
@@ -9,6 +9,8 @@ import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.Environment;
 import com.cascadebot.cascadebot.commandmeta.CommandContext;
 import com.cascadebot.cascadebot.commandmeta.CommandException;
+import com.cascadebot.cascadebot.commandmeta.CommandExecutor;
+import com.cascadebot.cascadebot.commandmeta.CommandTokens;
 import com.cascadebot.cascadebot.commandmeta.ICommandExecutable;
 import com.cascadebot.cascadebot.commandmeta.ICommandMain;
 import com.cascadebot.cascadebot.commandmeta.ICommandRestricted;
@@ -16,9 +18,8 @@ import com.cascadebot.cascadebot.data.Config;
 import com.cascadebot.cascadebot.data.mapping.GuildDataMapper;
 import com.cascadebot.cascadebot.data.objects.GuildData;
 import com.cascadebot.cascadebot.messaging.Messaging;
-import com.cascadebot.cascadebot.messaging.MessagingObjects;
-import com.cascadebot.shared.Regex;
-import com.cascadebot.shared.utils.ThreadPoolExecutorLogged;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
 import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.events.message.guild.GuildMessageReceivedEvent;
@@ -27,59 +28,92 @@ import org.apache.commons.lang3.ArrayUtils;
 
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CommandListener extends ListenerAdapter {
 
     private static final ThreadGroup COMMAND_THREADS = new ThreadGroup("Command Threads");
-    private static final AtomicInteger threadCounter = new AtomicInteger(0);
-    private static final ExecutorService COMMAND_POOL = ThreadPoolExecutorLogged.newFixedThreadPool(5, r ->
-            new Thread(COMMAND_THREADS, r, "Command Pool-" + threadCounter.incrementAndGet()), CascadeBot.LOGGER);
+    private static final CommandExecutor COMMAND_EXECUTOR = new CommandExecutor(
+            CommandExecutor.newCommandExecutorService(20, COMMAND_THREADS),
+            Config.INS.getCommandGuildLimit(),
+            Config.INS.getCommandGuildQueueLimit()
+    );
+
+    // The messages in each guild that are waiting for the guild's data to load
+    private final Map<Long, CompletableFuture<Void>> waitingMessages = new ConcurrentHashMap<>();
+
+    private volatile String selfMention; // Cached so checking for a mention prefix doesn't build a new string each message
 
     @Override
     public void onGuildMessageReceived(GuildMessageReceivedEvent event) {
         if (event.getAuthor().isBot()) return;
 
-        String message = Regex.MULTISPACE_REGEX.matcher(event.getMessage().getContentRaw()).replaceAll(" ");
+        long guildId = event.getGuild().getIdLong();
+        CompletableFuture<GuildData> guildData = GuildDataMapper.getGuildDataAsync(guildId);
+        if (guildData.isDone() && !waitingMessages.containsKey(guildId)) {
+            // Cached, so this is handled on the event thread like before and chat costs nothing extra
+            onGuildData(event, guildData);
+            return;
+        }
+
+        // The event thread is never blocked on the database, messages waiting on the load are chained so they are
+        // still handled in the order they were sent. Commands are then run through the command executor as usual.
+        CompletableFuture<Void> handled = waitingMessages.compute(guildId, (id, previous) ->
+                (previous == null ? guildData : CompletableFuture.allOf(previous, guildData)).handle((ignored, throwable) -> {
+                    onGuildData(event, guildData);
+                    return null;
+                }));
+        handled.whenComplete((ignored, throwable) -> waitingMessages.remove(guildId, handled));
+    }
+
+    private void onGuildData(GuildMessageReceivedEvent event, CompletableFuture<GuildData> future) {
         GuildData guildData;
         try {
-            guildData = GuildDataMapper.getGuildData(event.getGuild().getIdLong());
+            guildData = future.join();
             if (guildData == null) {
                 // This should *hopefully* never happen but just in case :D
                 throw new IllegalStateException(String.format("Guild data for guild ID: %s is null!", event.getGuild().getId()));
             }
         } catch (Exception e) {
-            Messaging.sendExceptionMessage(event.getChannel(), "We have failed to process your guild data!", new CommandException(e, event.getGuild(), ""));
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Messaging.sendExceptionMessage(event.getChannel(), "We have failed to process your guild data!", new CommandException(cause, event.getGuild(), ""));
             return;
         }
+        try {
+            handleMessage(event, guildData);
+        } catch (RuntimeException e) {
+            CascadeBot.LOGGER.error("Error handling message in guild ID: " + event.getGuild().getId(), e);
+        }
+    }
 
+    private void handleMessage(GuildMessageReceivedEvent event, GuildData guildData) {
+        String message = event.getMessage().getContentRaw();
         String prefix = guildData.getPrefix();
+        String defaultPrefix = Config.INS.getDefaultPrefix();
         boolean isMention = false;
 
-        String commandWithArgs;
-        String trigger;
-        String[] args;
+        CommandTokens tokens;
 
         if (message.startsWith(prefix)) {
-            commandWithArgs = message.substring(prefix.length()); // Remove prefix from command
-            trigger = commandWithArgs.split(" ")[0]; // Get first string before a space
-            args = ArrayUtils.remove(commandWithArgs.split(" "), 0); // Remove the command portion of the string
-        } else if (guildData.getSettings().isMentionPrefix() && message.startsWith(event.getJDA().getSelfUser().getAsMention())) {
-            commandWithArgs = message.substring(event.getJDA().getSelfUser().getAsMention().length()).trim();
-            trigger = commandWithArgs.split(" ")[0];
-            args = ArrayUtils.remove(commandWithArgs.split(" "), 0);
+            if (message.length() == prefix.length() || message.charAt(prefix.length()) == ' ') return;
+            tokens = CommandTokens.tokenize(message, prefix.length());
+        } else if (guildData.getSettings().isMentionPrefix() && message.startsWith(getSelfMention(event))) {
+            tokens = CommandTokens.tokenize(message, getSelfMention(event).length());
             isMention = true;
-        } else if (message.startsWith(Config.INS.getDefaultPrefix() + "prefix") && !Config.INS.getDefaultPrefix().equals(guildData.getPrefix())) {
-            commandWithArgs = message.substring(Config.INS.getDefaultPrefix().length());
-            trigger = commandWithArgs.split(" ")[0];
-            args = ArrayUtils.remove(commandWithArgs.split(" "), 0);
+        } else if (message.startsWith(defaultPrefix) && message.startsWith("prefix", defaultPrefix.length()) && !defaultPrefix.equals(prefix)) {
+            tokens = CommandTokens.tokenize(message, defaultPrefix.length());
         } else {
             return;
         }
 
+        if (tokens == null) return;
+
+        String trigger = tokens.getTrigger();
         try {
-            processCommands(event, guildData, trigger, args, isMention);
+            processCommands(event, guildData, trigger, tokens.getArgs(), isMention);
         } catch (Exception e) {
             Messaging.sendExceptionMessage(
                     event.getChannel(),
@@ -89,13 +123,22 @@ public class CommandListener extends ListenerAdapter {
         }
     }
 
+    private String getSelfMention(GuildMessageReceivedEvent event) {
+        String mention = selfMention;
+        if (mention == null) {
+            mention = event.getJDA().getSelfUser().getAsMention();
+            selfMention = mention;
+        }
+        return mention;
+    }
+
     private void processCommands(GuildMessageReceivedEvent event, GuildData guildData, String trigger, String[] args, boolean isMention) {
         ICommandMain cmd = CascadeBot.INS.getCommandManager().getCommand(trigger, event.getAuthor(), guildData);
         if (cmd != null) {
             if (cmd.getModule().isPublicModule() &&
                     !guildData.isModuleEnabled(cmd.getModule())) {
                 if (guildData.getSettings().willDisplayModuleErrors() || Environment.isDevelopment()) {
-                    EmbedBuilder builder = MessagingObjects.getClearThreadLocalEmbedBuilder();
+                    EmbedBuilder builder = new EmbedBuilder();
                     builder.setDescription(String.format("The module `%s` for command `%s` is disabled!", cmd.getModule().toString(), trigger));
                     builder.setTimestamp(Instant.now());
                     builder.setFooter("Requested by " + event.getAuthor().getAsTag(), event.getAuthor().getEffectiveAvatarUrl());
@@ -153,7 +196,7 @@ public class CommandListener extends ListenerAdapter {
             }
             return false;
         }
-        COMMAND_POOL.submit(() -> {
+        boolean submitted = COMMAND_EXECUTOR.submit(context.getGuild().getIdLong(), command.getClass(), () -> {
             CascadeBot.LOGGER.info("{}Command {}{} executed by {} with args: {}",
                     (command instanceof ICommandMain ? "" : "Sub"),
                     command.command(),
@@ -170,6 +213,10 @@ public class CommandListener extends ListenerAdapter {
                 ), e);
             }
         });
+        if (!submitted) {
+            context.replyWarning("There are too many commands running in this server, please wait a moment and try again!");
+            return true;
+        }
         deleteMessages(command, context);
         return true;
     }
@@ -177,7 +224,7 @@ public class CommandListener extends ListenerAdapter {
     private void deleteMessages(ICommandExecutable command, CommandContext context) {
         if (context.getSettings().willDeleteCommand() && command.deleteMessages()) {
             if (context.getGuild().getSelfMember().hasPermission(context.getChannel(), Permission.MESSAGE_MANAGE)) {
-                context.getMessage().delete().queue();
+                CascadeBot.INS.getRestScheduler().queue(RestPriority.CLEANUP, RestRoute.DELETE_MESSAGE, context.getChannel().getIdLong(), context.getMessage().delete());
             } else {
                 context.getGuild().getOwner().getUser().openPrivateChannel().queue(channel -> channel.sendMessage(
                         "We can't delete guild messages as we won't have the permission manage messages! Please either give me this " +
@@ -190,7 +237,11 @@ public class CommandListener extends ListenerAdapter {
     }
 
     public static void shutdownCommandPool() {
-        COMMAND_POOL.shutdown();
+        COMMAND_EXECUTOR.shutdown();
+    }
+
+    public static CommandExecutor getCommandExecutor() {
+        return COMMAND_EXECUTOR;
     }
 
 
@@ -6,14 +6,24 @@
 package com.cascadebot.cascadebot.events;
 
 import com.cascadebot.cascadebot.CascadeBot;
+import com.cascadebot.cascadebot.data.Config;
+import com.cascadebot.cascadebot.data.mapping.GuildDataMapper;
 import net.dv8tion.jda.bot.sharding.ShardManager;
+import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.events.ReadyEvent;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
 
+import java.util.stream.Collectors;
+
 public class GeneralEvents extends ListenerAdapter {
 
     @Override
     public void onReady(ReadyEvent event) {
+        GuildDataMapper.warmCache(
+                event.getJDA().getGuilds().stream().map(Guild::getIdLong).collect(Collectors.toList()),
+                Config.INS.getWarmupBatchSize(),
+                Config.INS.getWarmupConcurrency()
+        );
         ShardManager shardManager = CascadeBot.INS.getShardManager();
         if (shardManager.getShards().size() == shardManager.getShardsTotal()) {
             CascadeBot.INS.run();
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.events;
+
+import com.cascadebot.cascadebot.CascadeBot;
+import com.cascadebot.cascadebot.data.Config;
+import com.cascadebot.cascadebot.permissions.PermissionResolver;
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.User;
+import net.dv8tion.jda.core.events.guild.GuildAvailableEvent;
+import net.dv8tion.jda.core.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.core.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberLeaveEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberRoleRemoveEvent;
+import net.dv8tion.jda.core.events.guild.update.GuildUpdateOwnerEvent;
+import net.dv8tion.jda.core.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.core.events.role.update.RoleUpdatePermissionsEvent;
+import net.dv8tion.jda.core.hooks.ListenerAdapter;
+
+/**
+ * Invalidates resolved member permissions when something they were resolved from changes, such as a member's roles.
+ * <p>
+ * Changes to members and roles in the official guild, and the official guild becoming available, also invalidate the
+ * cached security levels.
+ */
+public class PermissionEventListener extends ListenerAdapter {
+
+    @Override
+    public void onRoleUpdatePermissions(RoleUpdatePermissionsEvent event) {
+        getResolver().invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onRoleDelete(RoleDeleteEvent event) {
+        getResolver().invalidateGuild(event.getGuild().getIdLong());
+        if (isOfficialGuild(event.getGuild())) {
+            CascadeBot.INS.getPermissionsManager().invalidateSecurityLevels();
+        }
+    }
+
+    @Override
+    public void onGuildMemberRoleAdd(GuildMemberRoleAddEvent event) {
+        getResolver().invalidateMember(event.getGuild().getIdLong(), event.getUser().getIdLong());
+        invalidateOfficialMember(event.getGuild(), event.getUser());
+    }
+
+    @Override
+    public void onGuildMemberRoleRemove(GuildMemberRoleRemoveEvent event) {
+        getResolver().invalidateMember(event.getGuild().getIdLong(), event.getUser().getIdLong());
+        invalidateOfficialMember(event.getGuild(), event.getUser());
+    }
+
+    @Override
+    public void onGuildMemberJoin(GuildMemberJoinEvent event) {
+        invalidateOfficialMember(event.getGuild(), event.getUser());
+    }
+
+    @Override
+    public void onGuildUpdateOwner(GuildUpdateOwnerEvent event) {
+        getResolver().invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberLeave(GuildMemberLeaveEvent event) {
+        getResolver().invalidateMember(event.getGuild().getIdLong(), event.getUser().getIdLong());
+        invalidateOfficialMember(event.getGuild(), event.getUser());
+    }
+
+    @Override
+    public void onGuildReady(GuildReadyEvent event) {
+        invalidateOfficialGuild(event.getGuild());
+    }
+
+    @Override
+    public void onGuildAvailable(GuildAvailableEvent event) {
+        invalidateOfficialGuild(event.getGuild());
+    }
+
+    @Override
+    public void onGuildLeave(GuildLeaveEvent event) {
+        getResolver().invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    private void invalidateOfficialGuild(Guild guild) {
+        // Role IDs looked up before the official guild was loaded were cached as empty
+        if (isOfficialGuild(guild)) {
+            CascadeBot.INS.getPermissionsManager().invalidateSecurityLevels();
+        }
+    }
+
+    private void invalidateOfficialMember(Guild guild, User user) {
+        if (isOfficialGuild(guild)) {
+            CascadeBot.INS.getPermissionsManager().invalidateSecurityLevel(user.getIdLong());
+        }
+    }
+
+    private boolean isOfficialGuild(Guild guild) {
+        return guild.getIdLong() == Config.INS.getOfficialServerId();
+    }
+
+    private PermissionResolver getResolver() {
+        return CascadeBot.INS.getPermissionsManager().getPermissionResolver();
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.messaging;
+
+import com.cascadebot.cascadebot.utils.FormatUtils;
+import net.dv8tion.jda.core.EmbedBuilder;
+import net.dv8tion.jda.core.MessageBuilder;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageEmbed;
+import net.dv8tion.jda.core.entities.User;
+
+import java.awt.Color;
+
+/**
+ * The parts of a {@link MessageType} reply that never change, worked out once so each reply only fills in its content.
+ * Templates are immutable and every call returns a new embed or message, so they are safe to share between threads
+ * and to use from async callbacks.
+ */
+public final class MessageTemplate {
+
+    private final Color color;
+    private final String prefix; // The emoji and a space, or nothing if there is no emoji
+
+    MessageTemplate(Color color, String emoji) {
+        this.color = color;
+        this.prefix = emoji.isEmpty() ? "" : emoji + " ";
+    }
+
+    /**
+     * Creates an embed with this template's colour and the given description.
+     *
+     * @param description The description of the embed.
+     * @return The built embed.
+     */
+    public MessageEmbed embed(String description) {
+        return new EmbedBuilder().setColor(color).setDescription(description).build();
+    }
+
+    /**
+     * Creates an embed with this template's colour, the given description and a footer saying who requested it.
+     *
+     * @param description The description of the embed.
+     * @param requestedBy The user who requested the message.
+     * @return The built embed.
+     */
+    public MessageEmbed embed(String description, User requestedBy) {
+        return new EmbedBuilder()
+                .setColor(color)
+                .setDescription(description)
+                .setFooter("Requested by " + requestedBy.getAsTag(), requestedBy.getEffectiveAvatarUrl())
+                .build();
+    }
+
+    /**
+     * Builds the embed builder with this template's colour.
+     *
+     * @param builder The builder containing the content of the embed.
+     * @return The built embed.
+     */
+    public MessageEmbed embed(EmbedBuilder builder) {
+        return builder.setColor(color).build();
+    }
+
+    /**
+     * Creates a plain message with this template's emoji in front of the content.
+     *
+     * @param content The content of the message.
+     * @return The built message.
+     */
+    public Message message(String content) {
+        return new MessageBuilder().append(prefix).append(content).build();
+    }
+
+    /**
+     * Formats an embed as plain text with this template's emoji in front, used when a guild has embeds turned off.
+     *
+     * @param embed The embed to format.
+     * @return The formatted text.
+     */
+    public String text(MessageEmbed embed) {
+        return prefix + FormatUtils.formatEmbed(embed);
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+}
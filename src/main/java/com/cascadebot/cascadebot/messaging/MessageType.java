@@ -20,10 +20,12 @@ public enum MessageType {
 
     private final Color color;
     private final String emoji;
+    private final MessageTemplate template;
 
     MessageType(Color color, String emoji) {
         this.color = color;
         this.emoji = emoji;
+        this.template = new MessageTemplate(color, emoji);
     }
 
     public Color getColor() {
@@ -34,4 +36,8 @@ public enum MessageType {
         return emoji;
     }
 
+    public MessageTemplate getTemplate() {
+        return template;
+    }
+
 }
@@ -8,14 +8,15 @@ package com.cascadebot.cascadebot.messaging;
 import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.Constants;
 import com.cascadebot.cascadebot.Environment;
-import com.cascadebot.cascadebot.data.mapping.GuildDataMapper;
-import com.cascadebot.cascadebot.data.objects.GuildData;
+import com.cascadebot.cascadebot.tasks.Task;
 import com.cascadebot.cascadebot.utils.PasteUtils;
-import com.cascadebot.cascadebot.utils.FormatUtils;
 import com.cascadebot.cascadebot.utils.buttons.Button;
 import com.cascadebot.cascadebot.utils.buttons.ButtonGroup;
 import com.cascadebot.cascadebot.utils.pagination.Page;
 import com.cascadebot.cascadebot.utils.pagination.PageCache;
+import com.cascadebot.cascadebot.utils.pagination.PageSource;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
 import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.MessageBuilder;
 import net.dv8tion.jda.core.Permission;
@@ -24,142 +25,155 @@ import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.MessageChannel;
 import net.dv8tion.jda.core.entities.MessageEmbed;
 import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.User;
 import net.dv8tion.jda.core.exceptions.PermissionException;
-import net.dv8tion.jda.core.requests.RequestFuture;
+import net.dv8tion.jda.core.requests.restaction.MessageAction;
 import net.dv8tion.jda.core.utils.Checks;
 
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 public final class Messaging {
 
-    public static RequestFuture<Message> sendMessageTypeMessage(MessageChannel channel, MessageType type, String message, boolean embed) {
+    public static CompletableFuture<Message> sendMessageTypeMessage(MessageChannel channel, MessageType type, String message, boolean embed) {
         Checks.notNull(channel, "channel");
         if (embed) {
-            return channel.sendMessage(MessagingObjects.getMessageTypeEmbedBuilder(type).setDescription(message).build()).submit();
+            return submit(channel, channel.sendMessage(type.getTemplate().embed(message)));
         } else {
-            return channel.sendMessage(MessagingObjects.getMessageTypeMessageBuilder(type).append(message).build()).submit();
+            return submit(channel, channel.sendMessage(type.getTemplate().message(message)));
         }
     }
 
-    public static RequestFuture<Message> sendMessageTypeEmbedMessage(MessageChannel channel, MessageType type, EmbedBuilder builder, boolean embed) {
+    public static CompletableFuture<Message> sendMessageTypeMessage(MessageChannel channel, MessageType type, String message, User requestedBy, boolean embed) {
         Checks.notNull(channel, "channel");
+        MessageEmbed messageEmbed = type.getTemplate().embed(message, requestedBy);
         if (embed) {
-            return channel.sendMessage(builder.setColor(type.getColor()).build()).submit();
+            return submit(channel, channel.sendMessage(messageEmbed));
         } else {
-            return channel.sendMessage(type.getEmoji() + " " + FormatUtils.formatEmbed(builder.build())).submit();
+            return submit(channel, channel.sendMessage(type.getTemplate().text(messageEmbed)));
         }
     }
 
-    public static RequestFuture<Message> sendInfoMessage(MessageChannel channel, String message) {
+    public static CompletableFuture<Message> sendMessageTypeEmbedMessage(MessageChannel channel, MessageType type, EmbedBuilder builder, boolean embed) {
+        Checks.notNull(channel, "channel");
+        if (embed) {
+            return submit(channel, channel.sendMessage(type.getTemplate().embed(builder)));
+        } else {
+            return submit(channel, channel.sendMessage(type.getTemplate().text(builder.build())));
+        }
+    }
+
+    public static CompletableFuture<Message> sendInfoMessage(MessageChannel channel, String message) {
         return sendInfoMessage(channel, message, true);
     }
 
-    public static RequestFuture<Message> sendInfoMessage(MessageChannel channel, String message, boolean embed) {
+    public static CompletableFuture<Message> sendInfoMessage(MessageChannel channel, String message, boolean embed) {
         return sendMessageTypeMessage(channel, MessageType.INFO, message, embed);
     }
 
-    public static RequestFuture<Message> sendInfoMessage(MessageChannel channel, EmbedBuilder builder) {
+    public static CompletableFuture<Message> sendInfoMessage(MessageChannel channel, EmbedBuilder builder) {
         return sendMessageTypeEmbedMessage(channel, MessageType.INFO, builder, true);
     }
 
-    public static RequestFuture<Message> sendInfoMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
+    public static CompletableFuture<Message> sendInfoMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
         return sendMessageTypeEmbedMessage(channel, MessageType.INFO, builder, embed);
     }
 
-    public static RequestFuture<Message> sendSuccessMessage(MessageChannel channel, String message) {
+    public static CompletableFuture<Message> sendSuccessMessage(MessageChannel channel, String message) {
         return sendSuccessMessage(channel, message, true);
     }
 
-    public static RequestFuture<Message> sendSuccessMessage(MessageChannel channel, String message, boolean embed) {
+    public static CompletableFuture<Message> sendSuccessMessage(MessageChannel channel, String message, boolean embed) {
         return sendMessageTypeMessage(channel, MessageType.SUCCESS, message, embed);
     }
 
-    public static RequestFuture<Message> sendSuccessMessage(MessageChannel channel, EmbedBuilder builder) {
+    public static CompletableFuture<Message> sendSuccessMessage(MessageChannel channel, EmbedBuilder builder) {
         return sendMessageTypeEmbedMessage(channel, MessageType.SUCCESS, builder, true);
     }
 
-    public static RequestFuture<Message> sendSuccessMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
+    public static CompletableFuture<Message> sendSuccessMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
         return sendMessageTypeEmbedMessage(channel, MessageType.SUCCESS, builder, embed);
     }
 
-    public static RequestFuture<Message> sendWarningMessage(MessageChannel channel, String message) {
+    public static CompletableFuture<Message> sendWarningMessage(MessageChannel channel, String message) {
         return sendWarningMessage(channel, message, true);
     }
 
-    public static RequestFuture<Message> sendWarningMessage(MessageChannel channel, String message, boolean embed) {
+    public static CompletableFuture<Message> sendWarningMessage(MessageChannel channel, String message, boolean embed) {
         return sendMessageTypeMessage(channel, MessageType.WARNING, message, embed);
     }
 
-    public static RequestFuture<Message> sendWarningMessage(MessageChannel channel, EmbedBuilder builder) {
+    public static CompletableFuture<Message> sendWarningMessage(MessageChannel channel, EmbedBuilder builder) {
         return sendMessageTypeEmbedMessage(channel, MessageType.WARNING, builder, true);
     }
 
-    public static RequestFuture<Message> sendWarningMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
+    public static CompletableFuture<Message> sendWarningMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
         return sendMessageTypeEmbedMessage(channel, MessageType.WARNING, builder, embed);
     }
 
-    public static RequestFuture<Message> sendModerationMessage(MessageChannel channel, String message) {
+    public static CompletableFuture<Message> sendModerationMessage(MessageChannel channel, String message) {
         return sendModerationMessage(channel, message, true);
     }
 
-    public static RequestFuture<Message> sendModerationMessage(MessageChannel channel, String message, boolean embed) {
+    public static CompletableFuture<Message> sendModerationMessage(MessageChannel channel, String message, boolean embed) {
         return sendMessageTypeMessage(channel, MessageType.MODERATION, message, embed);
     }
 
-    public static RequestFuture<Message> sendModerationMessage(MessageChannel channel, EmbedBuilder builder) {
+    public static CompletableFuture<Message> sendModerationMessage(MessageChannel channel, EmbedBuilder builder) {
         return sendMessageTypeEmbedMessage(channel, MessageType.MODERATION, builder, true);
     }
 
-    public static RequestFuture<Message> sendModerationMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
+    public static CompletableFuture<Message> sendModerationMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
         return sendMessageTypeEmbedMessage(channel, MessageType.MODERATION, builder, embed);
     }
 
-    public static RequestFuture<Message> sendDangerMessage(MessageChannel channel, String message) {
+    public static CompletableFuture<Message> sendDangerMessage(MessageChannel channel, String message) {
         return sendDangerMessage(channel, message, true);
     }
 
-    public static RequestFuture<Message> sendDangerMessage(MessageChannel channel, String message, boolean embed) {
+    public static CompletableFuture<Message> sendDangerMessage(MessageChannel channel, String message, boolean embed) {
         return sendMessageTypeMessage(channel, MessageType.DANGER, message, embed);
     }
 
-    public static RequestFuture<Message> sendDangerMessage(MessageChannel channel, EmbedBuilder builder) {
+    public static CompletableFuture<Message> sendDangerMessage(MessageChannel channel, EmbedBuilder builder) {
         return sendMessageTypeEmbedMessage(channel, MessageType.DANGER, builder, true);
     }
 
-    public static RequestFuture<Message> sendDangerMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
+    public static CompletableFuture<Message> sendDangerMessage(MessageChannel channel, EmbedBuilder builder, boolean embed) {
         return sendMessageTypeEmbedMessage(channel, MessageType.DANGER, builder, embed);
     }
 
-    public static RequestFuture<Message> sendExceptionMessage(MessageChannel channel, String s, Exception e) {
-        String message = "**" + s + "**" +
-                "\nStack trace: " + PasteUtils.paste(PasteUtils.getStackTrace(e)) +
-                (Environment.isDevelopment() ? "" : "\nPlease report the stack trace and the error to the developers here: " + Constants.serverInvite);
-        return sendDangerMessage(channel, message);
+    public static CompletableFuture<Message> sendExceptionMessage(MessageChannel channel, String s, Exception e) {
+        // Pasting is async so this never blocks the calling thread, which can be a JDA event thread
+        return PasteUtils.paste(PasteUtils.getStackTrace(e)).thenCompose(link -> {
+            String message = "**" + s + "**" +
+                    (link.isEmpty() ? "" : "\nStack trace: " + link) +
+                    (Environment.isDevelopment() ? "" : "\nPlease report the stack trace and the error to the developers here: " + Constants.serverInvite);
+            return sendDangerMessage(channel, message);
+        });
     }
 
-    public static void sendAutoDeleteMessage(MessageChannel channel, String message, long delay) {
-        channel.sendMessage(message).queue(messageToDelete -> {
-            // We should always be able to delete our own message
-            messageToDelete.delete().queueAfter(delay, TimeUnit.MILLISECONDS);
-        });
+    public static CompletableFuture<Void> sendAutoDeleteMessage(MessageChannel channel, String message, long delay) {
+        return submit(channel, channel.sendMessage(message)).thenAccept(messageToDelete -> {
+            deleteAfter(messageToDelete, delay);
+        }).exceptionally(Messaging::logFailure);
     }
 
-    public static void sendAutoDeleteMessage(MessageChannel channel, MessageEmbed embed, long delay) {
-        channel.sendMessage(embed).queue(messageToDelete -> {
-            // We should always be able to delete our own message
-            messageToDelete.delete().queueAfter(delay, TimeUnit.MILLISECONDS);
-        });
+    public static CompletableFuture<Void> sendAutoDeleteMessage(MessageChannel channel, MessageEmbed embed, long delay) {
+        return submit(channel, channel.sendMessage(embed)).thenAccept(messageToDelete -> {
+            deleteAfter(messageToDelete, delay);
+        }).exceptionally(Messaging::logFailure);
     }
 
-    public static void sendAutoDeleteMessage(MessageChannel channel, Message message, long delay) {
-        channel.sendMessage(message).queue(messageToDelete -> {
-            // We should always be able to delete our own message
-            messageToDelete.delete().queueAfter(delay, TimeUnit.MILLISECONDS);
-        });
+    public static CompletableFuture<Void> sendAutoDeleteMessage(MessageChannel channel, Message message, long delay) {
+        return submit(channel, channel.sendMessage(message)).thenAccept(messageToDelete -> {
+            deleteAfter(messageToDelete, delay);
+        }).exceptionally(Messaging::logFailure);
     }
 
-    public static RequestFuture<Message> sendButtonedMessage(TextChannel channel, Message message, ButtonGroup buttonGroup) {
+    public static CompletableFuture<Message> sendButtonedMessage(TextChannel channel, Message message, ButtonGroup buttonGroup) {
         Checks.notNull(message, "message");
         Checks.notNull(channel, "channel");
         Checks.notNull(buttonGroup, "button group");
@@ -168,34 +182,39 @@ public final class Messaging {
             throw new PermissionException("Cannot perform action due to a lack of Permission. Missing permission: " + Permission.MESSAGE_ADD_REACTION);
         }
 
-        RequestFuture<Message> future = channel.sendMessage(message).submit();
-        future.thenAccept((sentMessage -> {
+        CompletableFuture<Message> future = submit(channel, channel.sendMessage(message));
+        future.thenAccept(sentMessage -> {
             buttonGroup.addButtonsToMessage(sentMessage);
-            buttonGroup.setMessage(sentMessage.getIdLong());
-            GuildDataMapper.getGuildData(sentMessage.getGuild().getIdLong()).addButtonGroup(channel, sentMessage, buttonGroup);
-        }));
+            CascadeBot.INS.getButtonsCache().addButtonGroup(channel, sentMessage, buttonGroup);
+        }).exceptionally(Messaging::logFailure);
         return future;
     }
 
-    public static RequestFuture<Message> sendButtonedMessage(TextChannel channel, String message, ButtonGroup buttonGroup) {
+    public static CompletableFuture<Message> sendButtonedMessage(TextChannel channel, String message, ButtonGroup buttonGroup) {
         Checks.notBlank(message, "message");
         return sendButtonedMessage(channel, new MessageBuilder().append(message).build(), buttonGroup);
     }
 
-    public static RequestFuture<Message> sendButtonedMessage(TextChannel channel, MessageEmbed embed, ButtonGroup buttonGroup) {
+    public static CompletableFuture<Message> sendButtonedMessage(TextChannel channel, MessageEmbed embed, ButtonGroup buttonGroup) {
         Checks.notNull(embed, "embed");
         return sendButtonedMessage(channel, new MessageBuilder().setEmbed(embed).build(), buttonGroup);
     }
 
-    public static RequestFuture<Message> sendPagedMessage(TextChannel channel, Member owner, List<Page> pages) {
+    public static CompletableFuture<Message> sendPagedMessage(TextChannel channel, Member owner, List<Page> pages) {
+        return sendPagedMessage(channel, owner, PageSource.of(pages));
+    }
+
+    public static CompletableFuture<Message> sendPagedMessage(TextChannel channel, Member owner, PageSource pages) {
         ButtonGroup group = new ButtonGroup(owner.getUser().getIdLong(), channel.getGuild().getIdLong());
         group.addButton(new Button.UnicodeButton("\u23EE" /* Rewind, start at beginning */, (runner, textChannel, message) -> {
-            PageCache.Pages pageGroup = GuildDataMapper.getGuildData(textChannel.getGuild().getIdLong()).getPageCache().get(message.getIdLong());
+            PageCache.Pages pageGroup = getCachedPages(textChannel, message);
+            if (pageGroup == null) return;
             pageGroup.getPage(1).pageShow(message, 1, pageGroup.getPages());
             pageGroup.setCurrentPage(1);
         }));
         group.addButton(new Button.UnicodeButton("\u25C0" /* Left arrow, go back one page */, (runner, textChannel, message) -> {
-            PageCache.Pages pageGroup = GuildDataMapper.getGuildData(textChannel.getGuild().getIdLong()).getPageCache().get(message.getIdLong());
+            PageCache.Pages pageGroup = getCachedPages(textChannel, message);
+            if (pageGroup == null) return;
             int newPage = pageGroup.getCurrentPage() - 1;
             if (newPage < 1) {
                 return;
@@ -204,7 +223,8 @@ public final class Messaging {
             pageGroup.setCurrentPage(newPage);
         }));
         group.addButton(new Button.UnicodeButton("\u25B6" /* Right arrow, go forward one page */, (runner, textChannel, message) -> {
-            PageCache.Pages pageGroup = GuildDataMapper.getGuildData(textChannel.getGuild().getIdLong()).getPageCache().get(message.getIdLong());
+            PageCache.Pages pageGroup = getCachedPages(textChannel, message);
+            if (pageGroup == null) return;
             int newPage = pageGroup.getCurrentPage() + 1;
             if (newPage > pageGroup.getPages()) {
                 return;
@@ -213,21 +233,42 @@ public final class Messaging {
             pageGroup.setCurrentPage(newPage);
         }));
         group.addButton(new Button.UnicodeButton("\u23ED" /* Fast-forward, go to last page */, (runner, textChannel, message) -> {
-            PageCache.Pages pageGroup = GuildDataMapper.getGuildData(textChannel.getGuild().getIdLong()).getPageCache().get(message.getIdLong());
+            PageCache.Pages pageGroup = getCachedPages(textChannel, message);
+            if (pageGroup == null) return;
             pageGroup.getPage(pageGroup.getPages()).pageShow(message, pageGroup.getPages(), pageGroup.getPages());
             pageGroup.setCurrentPage(pageGroup.getPages());
         }));
-        RequestFuture<Message> future = channel.sendMessage("Paged message loading...").submit();
+        CompletableFuture<Message> future = submit(channel, channel.sendMessage("Paged message loading..."));
         future.thenAccept(sentMessage -> {
-            pages.get(0).pageShow(sentMessage, 1, pages.size());
+            // Cache the pages before adding the buttons so a click can never find the pages missing
+            PageCache.Pages cached = CascadeBot.INS.getPageCache().put(channel.getGuild().getIdLong(), sentMessage.getIdLong(), pages);
+            cached.getPage(1).pageShow(sentMessage, 1, cached.getPages());
             group.addButtonsToMessage(sentMessage);
-            group.setMessage(sentMessage.getIdLong());
-            GuildData guildData = GuildDataMapper.getGuildData(channel.getGuild().getIdLong());
-            guildData.addButtonGroup(channel, sentMessage, group);
-            guildData.getPageCache().put(pages, sentMessage.getIdLong());
-        });
+            CascadeBot.INS.getButtonsCache().addButtonGroup(channel, sentMessage, group);
+        }).exceptionally(Messaging::logFailure);
         return future;
     }
 
+    private static CompletableFuture<Message> submit(MessageChannel channel, MessageAction action) {
+        return CascadeBot.INS.getRestScheduler().submit(RestPriority.REPLY, RestRoute.SEND_MESSAGE, channel.getIdLong(), action);
+    }
+
+    private static void deleteAfter(Message message, long delay) {
+        // We should always be able to delete our own message
+        Task.getScheduler().schedule(() -> CascadeBot.INS.getRestScheduler().queue(RestPriority.CLEANUP, RestRoute.DELETE_MESSAGE,
+                message.getChannel().getIdLong(), message.delete()), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static Void logFailure(Throwable throwable) {
+        // Dropped messages were dropped on purpose so aren't worth logging
+        if (!(throwable instanceof CancellationException || throwable.getCause() instanceof CancellationException)) {
+            CascadeBot.LOGGER.warn("Failed to send message", throwable);
+        }
+        return null;
+    }
+
+    private static PageCache.Pages getCachedPages(TextChannel channel, Message message) {
+        return CascadeBot.INS.getPageCache().get(message.getIdLong());
+    }
 
 }
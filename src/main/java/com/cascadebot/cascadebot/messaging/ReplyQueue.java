@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.messaging;
+
+import com.cascadebot.cascadebot.CascadeBot;
+import com.cascadebot.cascadebot.tasks.Task;
+import com.cascadebot.cascadebot.utils.pagination.Page;
+import com.cascadebot.cascadebot.utils.pagination.PageObjects;
+import com.cascadebot.cascadebot.utils.pagination.PageSource;
+import com.cascadebot.cascadebot.utils.pagination.PageUtils;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.core.EmbedBuilder;
+import net.dv8tion.jda.core.MessageBuilder;
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageEmbed;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.requests.restaction.MessageAction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends command replies, merging replies sent to the same channel in quick succession into one message.
+ * <p>
+ * The first reply to a channel is sent straight away. Any replies to that channel within {@code window} of the last
+ * send are held back and sent together when the window ends, so a command that replies several times costs one
+ * request instead of one for each reply. Text replies of the same type and requester are joined into one message
+ * while they fit Discord's limits, and if that would need more than {@value #MAX_UNPAGED_MESSAGES} messages they are
+ * sent as a paged message instead. Other messages are never merged but are kept in order with the replies around them,
+ * so everything a command sends to its channel should go through here.
+ */
+public class ReplyQueue {
+
+    private static final int MAX_UNPAGED_MESSAGES = 2;
+
+    private final long window;
+    private final Cache<Long, ChannelQueue> channels = Caffeine.newBuilder()
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build();
+
+    private final LongAdder replies = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder delayedReplies = new LongAdder();
+    private final LongAdder addedLatency = new LongAdder();
+
+    /**
+     * @param window How long in milliseconds to hold replies back after a message is sent to a channel.
+     */
+    public ReplyQueue(long window) {
+        this.window = TimeUnit.MILLISECONDS.toNanos(window);
+    }
+
+    /**
+     * Queues a text reply which can be merged with the replies around it.
+     *
+     * @param channel   The channel to send the reply to.
+     * @param type      The type of the reply or {@code null} for a plain reply.
+     * @param content   The content of the reply.
+     * @param requester The member who the reply is for.
+     * @param embed     Whether to send the reply as an embed, ignored for plain replies.
+     */
+    public void queue(TextChannel channel, MessageType type, String content, Member requester, boolean embed) {
+        submit(channel, new Reply(type, content, requester, type != null && embed));
+    }
+
+    /**
+     * Queues a message which is sent as is, after any replies queued before it.
+     *
+     * @param channel The channel to send the message to.
+     * @param message The message to send.
+     */
+    public void queue(TextChannel channel, Message message) {
+        submit(channel, new Reply(() -> sendMessage(channel, channel.sendMessage(message))));
+    }
+
+    /**
+     * Queues an embed which is sent as is, after any replies queued before it.
+     *
+     * @param channel The channel to send the embed to.
+     * @param embed   The embed to send.
+     */
+    public void queue(TextChannel channel, MessageEmbed embed) {
+        queue(channel, new MessageBuilder().setEmbed(embed).build());
+    }
+
+    /**
+     * Queues a send that can't be merged, such as a buttoned or paged message, so it's sent after any replies queued
+     * before it.
+     *
+     * @param channel The channel the send is to.
+     * @param send    Sends the message, this is called on the scheduler if the send is held back.
+     * @param <T>     The type of the send's result.
+     * @return A future that completes with the result of the send once it has been made.
+     */
+    public <T> CompletableFuture<T> queue(TextChannel channel, Supplier<CompletableFuture<T>> send) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        submit(channel, new Reply(() -> {
+            try {
+                send.get().whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        future.completeExceptionally(throwable);
+                    } else {
+                        future.complete(result);
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }));
+        return future;
+    }
+
+    private void submit(TextChannel channel, Reply reply) {
+        replies.increment();
+        ChannelQueue queue = channels.get(channel.getIdLong(), id -> new ChannelQueue(channel, System.nanoTime() - window));
+        long now = System.nanoTime();
+        long delay = -1;
+        synchronized (queue) {
+            if (!queue.scheduled && now - queue.lastSent >= window) {
+                queue.lastSent = now;
+            } else {
+                queue.pending.add(reply);
+                if (queue.scheduled) return;
+                queue.scheduled = true;
+                delay = Math.max(0, queue.lastSent + window - now);
+            }
+        }
+        if (delay == -1) {
+            List<Reply> single = new ArrayList<>(1);
+            single.add(reply);
+            send(channel, single);
+        } else {
+            Task.getScheduler().schedule(() -> flush(channel, queue), delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Sends every held back reply straight away, this is used when shutting down.
+     */
+    public void flushAll() {
+        for (ChannelQueue queue : channels.asMap().values()) {
+            flush(queue.channel, queue);
+        }
+    }
+
+    private void flush(TextChannel channel, ChannelQueue queue) {
+        List<Reply> pending;
+        long now = System.nanoTime();
+        synchronized (queue) {
+            if (queue.pending.isEmpty()) return; // Already flushed
+            pending = new ArrayList<>(queue.pending);
+            queue.pending.clear();
+            queue.scheduled = false;
+            queue.lastSent = now;
+        }
+        for (Reply reply : pending) {
+            addedLatency.add(now - reply.submitted);
+        }
+        delayedReplies.add(pending.size());
+        try {
+            send(channel, pending);
+        } catch (RuntimeException e) {
+            // This runs on the scheduler so nothing else would see this, usually we're missing a permission
+            CascadeBot.LOGGER.warn("Failed to send replies to channel ID: " + channel.getId(), e);
+        }
+    }
+
+    private void send(TextChannel channel, List<Reply> pending) {
+        int start = 0;
+        while (start < pending.size()) {
+            Reply first = pending.get(start);
+            if (first.send != null) {
+                messages.increment();
+                first.send.run();
+                start++;
+                continue;
+            }
+            int end = start + 1;
+            while (end < pending.size() && first.canMerge(pending.get(end))) {
+                end++;
+            }
+            sendMerged(channel, pending.subList(start, end));
+            start = end;
+        }
+    }
+
+    private void sendMerged(TextChannel channel, List<Reply> group) {
+        Reply first = group.get(0);
+        List<String> batches = new ArrayList<>();
+        StringBuilder batch = new StringBuilder(first.content);
+        for (int i = 1; i < group.size(); i++) {
+            String content = group.get(i).content;
+            if (fits(first, batch + "\n" + content, group.size())) {
+                batch.append('\n').append(content);
+            } else {
+                batches.add(batch.toString());
+                batch = new StringBuilder(content);
+            }
+        }
+        batches.add(batch.toString());
+
+        messages.increment();
+        if (batches.size() > MAX_UNPAGED_MESSAGES) {
+            PageSource pages = PageSource.of(batches.size(), page -> getPage(first, batches.get(page - 1)));
+            Messaging.sendPagedMessage(channel, first.requester, pages);
+            return;
+        }
+        messages.add(batches.size() - 1);
+        for (String content : batches) {
+            if (first.type == null) {
+                sendMessage(channel, channel.sendMessage(content));
+            } else {
+                MessageTemplate template = first.type.getTemplate();
+                MessageEmbed messageEmbed = template.embed(content, first.requester.getUser());
+                if (first.embed) {
+                    sendMessage(channel, channel.sendMessage(messageEmbed));
+                } else {
+                    sendMessage(channel, channel.sendMessage(template.text(messageEmbed)));
+                }
+            }
+        }
+    }
+
+    private void sendMessage(TextChannel channel, MessageAction action) {
+        CascadeBot.INS.getRestScheduler().queue(RestPriority.REPLY, RestRoute.SEND_MESSAGE, channel.getIdLong(), action);
+    }
+
+    /**
+     * Whether merged content still fits in one message once formatted. Text replies leave room for a page number in
+     * case the replies end up paged.
+     */
+    private boolean fits(Reply reply, String content, int maxPages) {
+        if (reply.embed) {
+            return content.length() <= MessageEmbed.TEXT_MAX_LENGTH;
+        }
+        int limit = Message.MAX_CONTENT_LENGTH - PageUtils.getPageNumberLength(maxPages);
+        if (reply.type == null) {
+            return content.length() <= limit;
+        }
+        if (content.length() > MessageEmbed.TEXT_MAX_LENGTH) return false;
+        MessageTemplate template = reply.type.getTemplate();
+        return template.text(template.embed(content, reply.requester.getUser())).length() <= limit;
+    }
+
+    private Page getPage(Reply reply, String content) {
+        if (reply.type == null) {
+            return new PageObjects.StringPage(content);
+        }
+        if (reply.embed) {
+            return new PageObjects.EmbedPage(new EmbedBuilder().setColor(reply.type.getColor()).setDescription(content));
+        }
+        return new PageObjects.StringPage(reply.type.getTemplate().getPrefix() + content);
+    }
+
+    /**
+     * Gets the total amount of replies and messages queued.
+     *
+     * @return The total amount of replies.
+     */
+    public long getReplies() {
+        return replies.sum();
+    }
+
+    /**
+     * Gets the total amount of messages actually sent, a paged message counts as one.
+     *
+     * @return The total amount of messages sent.
+     */
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    public long getRequestsSaved() {
+        return getReplies() - getMessages();
+    }
+
+    /**
+     * Gets the total amount of replies that were held back to be merged rather than sent straight away.
+     *
+     * @return The total amount of delayed replies.
+     */
+    public long getDelayedReplies() {
+        return delayedReplies.sum();
+    }
+
+    public double getAverageAddedLatency(TimeUnit unit) {
+        long delayed = getDelayedReplies();
+        return delayed == 0 ? 0 : (double) unit.convert(addedLatency.sum(), TimeUnit.NANOSECONDS) / delayed;
+    }
+
+    private static class ChannelQueue {
+
+        private final TextChannel channel;
+        private final List<Reply> pending = new ArrayList<>();
+        private long lastSent; // When a message was last sent to the channel, from System.nanoTime()
+        private boolean scheduled;
+
+        private ChannelQueue(TextChannel channel, long lastSent) {
+            this.channel = channel;
+            this.lastSent = lastSent;
+        }
+
+    }
+
+    private static class Reply {
+
+        private final MessageType type;
+        private final String content;
+        private final Member requester;
+        private final boolean embed;
+        private final Runnable send; // Sends a message as is, null for text replies
+        private final long submitted = System.nanoTime();
+
+        private Reply(MessageType type, String content, Member requester, boolean embed) {
+            this.type = type;
+            this.content = content;
+            this.requester = requester;
+            this.embed = embed;
+            this.send = null;
+        }
+
+        private Reply(Runnable send) {
+            this.type = null;
+            this.content = null;
+            this.requester = null;
+            this.embed = false;
+            this.send = send;
+        }
+
+        private boolean canMerge(Reply other) {
+            if (send != null || other.send != null) return false;
+            if (type != other.type || embed != other.embed) return false;
+            // Only one user's replies are merged, so one user's replies never end up on another user's pages
+            return requester.getUser().getIdLong() == other.requester.getUser().getIdLong();
+        }
+
+    }
+
+}
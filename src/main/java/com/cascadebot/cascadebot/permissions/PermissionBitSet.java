@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.permissions;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable set of permissions stored as a bitset of the ordinals assigned to permissions when they are
+ * registered, see {@link PermissionsManager#getOrdinal(String)}. Every operation returns a new set.
+ */
+public final class PermissionBitSet {
+
+    public static final PermissionBitSet EMPTY = new PermissionBitSet(new long[0]);
+
+    private final long[] words;
+
+    private PermissionBitSet(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Creates a permission set from the words returned by {@link #toLongArray()}.
+     *
+     * @param words The words of the bitset, this may be null for an empty set.
+     * @return The permission set.
+     */
+    public static PermissionBitSet valueOf(long[] words) {
+        if (words == null || words.length == 0) return EMPTY;
+        return new PermissionBitSet(trim(Arrays.copyOf(words, words.length)));
+    }
+
+    public static PermissionBitSet of(int... ordinals) {
+        PermissionBitSet set = EMPTY;
+        for (int ordinal : ordinals) {
+            set = set.with(ordinal);
+        }
+        return set;
+    }
+
+    /**
+     * Creates a set containing every ordinal from 0 (inclusive) to the given amount (exclusive).
+     *
+     * @param count The amount of ordinals to include.
+     * @return The permission set.
+     */
+    public static PermissionBitSet range(int count) {
+        long[] words = new long[(count + 63) >>> 6];
+        for (int i = 0; i < count; i++) {
+            words[i >>> 6] |= 1L << i;
+        }
+        return new PermissionBitSet(trim(words));
+    }
+
+    public boolean contains(int ordinal) {
+        int word = ordinal >>> 6;
+        return word < words.length && (words[word] & (1L << ordinal)) != 0;
+    }
+
+    public PermissionBitSet with(int ordinal) {
+        if (contains(ordinal)) return this;
+        long[] result = Arrays.copyOf(words, Math.max(words.length, (ordinal >>> 6) + 1));
+        result[ordinal >>> 6] |= 1L << ordinal;
+        return new PermissionBitSet(result);
+    }
+
+    public PermissionBitSet without(int ordinal) {
+        if (!contains(ordinal)) return this;
+        long[] result = Arrays.copyOf(words, words.length);
+        result[ordinal >>> 6] &= ~(1L << ordinal);
+        return new PermissionBitSet(trim(result));
+    }
+
+    public PermissionBitSet union(PermissionBitSet other) {
+        if (other.isEmpty()) return this;
+        if (isEmpty()) return other;
+        long[] result = Arrays.copyOf(words, Math.max(words.length, other.words.length));
+        for (int i = 0; i < other.words.length; i++) {
+            result[i] |= other.words[i];
+        }
+        return new PermissionBitSet(result);
+    }
+
+    public PermissionBitSet intersect(PermissionBitSet other) {
+        long[] result = new long[Math.min(words.length, other.words.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = words[i] & other.words[i];
+        }
+        return result.length == 0 ? EMPTY : new PermissionBitSet(trim(result));
+    }
+
+    /**
+     * Gets the permissions in this set that are not in the other set.
+     *
+     * @param other The permissions to remove.
+     * @return This set intersected with the negation of the other set.
+     */
+    public PermissionBitSet andNot(PermissionBitSet other) {
+        if (isEmpty() || other.isEmpty()) return this;
+        long[] result = Arrays.copyOf(words, words.length);
+        for (int i = 0; i < Math.min(result.length, other.words.length); i++) {
+            result[i] &= ~other.words[i];
+        }
+        return new PermissionBitSet(trim(result));
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                consumer.accept((i << 6) + bit);
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Gets a copy of the words of this bitset, used to store the set.
+     *
+     * @return The words of the bitset.
+     */
+    public long[] toLongArray() {
+        return Arrays.copyOf(words, words.length);
+    }
+
+    // Drops trailing zero words so equal sets always have equal arrays
+    private static long[] trim(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) length--;
+        return length == words.length ? words : Arrays.copyOf(words, length);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof PermissionBitSet && Arrays.equals(words, ((PermissionBitSet) obj).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        forEach(ordinal -> builder.append(builder.length() == 1 ? "" : ", ").append(ordinal));
+        return builder.append("]").toString();
+    }
+
+}
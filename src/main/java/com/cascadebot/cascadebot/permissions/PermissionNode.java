@@ -5,37 +5,95 @@
 
 package com.cascadebot.cascadebot.permissions;
 
-import java.util.Arrays;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
 import java.util.function.Predicate;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
-// All credit to the FlareBot project for this file
+// Originally based on the FlareBot project's PermissionNode
 // https://github.com/FlareBot/FlareBot/blob/master/src/main/java/stream/flarebot/flarebot/permissions/PermissionNode.java
+/**
+ * A permission node such as {@code cascade.module.*} compiled into its dot separated segments. A {@code *} segment
+ * matches one or more segments of a permission and a leading {@code -} marks the node as negated.
+ * Nodes are immutable so compiled nodes are cached and shared, see {@link #of(String)}.
+ */
 public class PermissionNode implements Predicate<String> {
 
+    private static final LoadingCache<String, PermissionNode> NODE_CACHE = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build(PermissionNode::new);
+
     private final String node;
+    private final boolean negated;
+    private final String[] segments;
 
     public PermissionNode(String node) {
         this.node = node;
+        this.negated = node.startsWith("-");
+        this.segments = (negated ? node.substring(1) : node).split("\\.");
+    }
+
+    /**
+     * Gets the compiled permission node for the string, compiling it if it isn't cached.
+     *
+     * @param node The permission node string.
+     * @return The compiled permission node.
+     */
+    public static PermissionNode of(String node) {
+        return NODE_CACHE.get(node);
     }
 
     public String getNode() {
         return node;
     }
 
+    /**
+     * Whether this node is a negation (starts with {@code -}). {@link #test(String)} ignores the negation
+     * and only checks if the permission is matched by the rest of the node.
+     *
+     * @return {@code true} if this node is negated.
+     */
+    public boolean isNegated() {
+        return negated;
+    }
+
+    String[] getSegments() {
+        return segments;
+    }
+
     @Override
     public boolean test(String permission) {
-        if (getNode().equals("*"))
+        if (segments.length == 1 && segments[0].equals("*"))
             return true;
-        // It splits by a `*` that's on a start of a string or has . around them
-        String textNode = Arrays.stream(getNode().split("(?:^\\*(\\.))|(?:(?<=\\.)\\*(?=\\.))|(?:(?<=\\.)\\*$)"))
-                // Then it escapes all of that so its not regexps
-                .map(Pattern::quote)
-                // And then it joins them with a match all regexp
-                .collect(Collectors.joining(".+")) + (getNode().endsWith("*") ? ".+" : "");
-        // And then it lets Java REGEXP compare them. Ty @I-Al-Istannen for making me do this comment
-        return permission.matches(textNode);
+        return matches(permission, 0, 0);
+    }
+
+    /**
+     * Matches the node segments from {@code segment} against the permission from index {@code start},
+     * which is always the start of a permission segment. An index past the end of the permission means
+     * every permission segment has been matched.
+     */
+    private boolean matches(String permission, int segment, int start) {
+        int length = permission.length();
+        if (segment == segments.length) return start > length;
+        if (start > length) return false;
+
+        String part = segments[segment];
+        if (part.equals("*")) {
+            // Try consuming one permission segment, then two, and so on
+            int end = permission.indexOf('.', start);
+            while (true) {
+                int next = end == -1 ? length + 1 : end + 1;
+                if (matches(permission, segment + 1, next)) return true;
+                if (end == -1) return false;
+                end = permission.indexOf('.', next);
+            }
+        }
+
+        int end = start + part.length();
+        if (end > length || !permission.regionMatches(start, part, 0, part.length())) return false;
+        if (end != length && permission.charAt(end) != '.') return false;
+        return matches(permission, segment + 1, end + 1);
     }
 
-}
\ No newline at end of file
+}
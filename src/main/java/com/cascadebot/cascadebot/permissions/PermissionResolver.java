@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.permissions;
+
+import com.cascadebot.cascadebot.permissions.objects.Group;
+import com.cascadebot.cascadebot.permissions.objects.GuildPermissions;
+import com.cascadebot.cascadebot.permissions.objects.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.core.Permission;
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.Role;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the effective permissions of a guild member. In order of precedence a permission is decided by:
+ * <ol>
+ *     <li>The member being the guild owner or an administrator, who have every permission.</li>
+ *     <li>The member's own permission overrides.</li>
+ *     <li>The groups the member has been added to or is in through one of their roles.</li>
+ *     <li>The member having all of the permission's Discord permissions.</li>
+ *     <li>Whether the permission is a default permission.</li>
+ * </ol>
+ * At each level a denied permission (a negated node) wins over a granted one. Grants and denies are stored as
+ * {@link PermissionBitSet}s so resolving a member is a handful of set operations.
+ * <p>
+ * The resolved permissions are cached per guild and member so checking a permission is a single lookup once warm.
+ * Entries resolved before the guild's {@link GuildPermissions} changed are recomputed, anything else that changes the
+ * result must call {@link #invalidateMember(long, long)}, such as a member's roles changing, or
+ * {@link #invalidateGuild(long)}, such as a role's Discord permissions changing. Invalidating a guild gives it a new
+ * generation rather than looking for its entries, so it's constant time however many members are cached.
+ */
+public class PermissionResolver {
+
+    private final PermissionsManager permissionsManager;
+
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    private final Cache<MemberKey, ResolvedPermissions> resolvedCache = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    // Guild ID -> generation, guilds that have never been invalidated are generation 0. These must outlive the
+    // resolved entries, a resolved entry unused for long enough for its guild's generation to expire has expired too.
+    private final Cache<Long, Long> guildGenerations = Caffeine.newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    public PermissionResolver(PermissionsManager permissionsManager) {
+        this.permissionsManager = permissionsManager;
+    }
+
+    public boolean hasPermission(Member member, GuildPermissions guildPermissions, CascadePermission permission) {
+        int ordinal = permissionsManager.getOrdinal(permission.getPermissionNode());
+        if (ordinal == -1) {
+            // Not a registered permission so groups and users can't have it
+            return isAdministrator(member) || hasDiscordPermissions(member, permission) || permission.isDefaultPerm();
+        }
+        return getEffectivePermissions(member, guildPermissions).contains(ordinal);
+    }
+
+    /**
+     * Gets every registered permission the member has.
+     *
+     * @param member           The member to get the permissions of.
+     * @param guildPermissions The permissions of the member's guild.
+     * @return The ordinals of the permissions the member has.
+     */
+    public PermissionBitSet getEffectivePermissions(Member member, GuildPermissions guildPermissions) {
+        long guildId = member.getGuild().getIdLong();
+        MemberKey key = new MemberKey(guildId, member.getUser().getIdLong());
+        long version = guildPermissions.getVersion();
+        long generation = getGeneration(guildId);
+        ResolvedPermissions resolved = resolvedCache.getIfPresent(key);
+        if (resolved == null || resolved.version != version || resolved.generation != generation) {
+            resolved = new ResolvedPermissions(version, generation, resolve(member, guildPermissions));
+            resolvedCache.put(key, resolved);
+        }
+        return resolved.allowed;
+    }
+
+    private PermissionBitSet resolve(Member member, GuildPermissions guildPermissions) {
+        PermissionBitSet all = permissionsManager.getAllPermissionBits();
+        if (isAdministrator(member)) return all;
+
+        PermissionBitSet allowed = PermissionBitSet.EMPTY;
+        PermissionBitSet undecided = all;
+
+        User user = guildPermissions.getUser(member.getUser().getIdLong());
+        if (user != null) {
+            allowed = user.getGrants();
+            undecided = undecided.andNot(user.getGrants()).andNot(user.getDenies());
+        }
+
+        PermissionBitSet groupGrants = PermissionBitSet.EMPTY;
+        PermissionBitSet groupDenies = PermissionBitSet.EMPTY;
+        for (Group group : getGroups(member, user, guildPermissions)) {
+            groupGrants = groupGrants.union(group.getGrants());
+            groupDenies = groupDenies.union(group.getDenies());
+        }
+        allowed = allowed.union(groupGrants.andNot(groupDenies).intersect(undecided));
+        undecided = undecided.andNot(groupGrants).andNot(groupDenies);
+
+        PermissionBitSet fallback = permissionsManager.getDefaultPermissionBits();
+        List<CascadePermission> permissions = permissionsManager.getPermissionsByOrdinal();
+        for (int ordinal = 0; ordinal < permissions.size(); ordinal++) {
+            if (undecided.contains(ordinal) && hasDiscordPermissions(member, permissions.get(ordinal))) {
+                fallback = fallback.with(ordinal);
+            }
+        }
+        return allowed.union(fallback.intersect(undecided));
+    }
+
+    private boolean isAdministrator(Member member) {
+        return member.isOwner() || member.hasPermission(Permission.ADMINISTRATOR);
+    }
+
+    private boolean hasDiscordPermissions(Member member, CascadePermission permission) {
+        EnumSet<Permission> discordPerms = permission.getDiscordPerm();
+        return !discordPerms.isEmpty() && member.hasPermission(discordPerms);
+    }
+
+    private List<Group> getGroups(Member member, User user, GuildPermissions guildPermissions) {
+        List<Group> groups = new ArrayList<>();
+        for (Group group : guildPermissions.getGroups()) {
+            if (user != null && user.getGroups().contains(group.getName())) {
+                groups.add(group);
+                continue;
+            }
+            for (Role role : member.getRoles()) {
+                if (group.getRoleIds().contains(role.getIdLong())) {
+                    groups.add(group);
+                    break;
+                }
+            }
+        }
+        return groups;
+    }
+
+    private long getGeneration(long guildId) {
+        Long generation = guildGenerations.getIfPresent(guildId);
+        return generation == null ? 0 : generation;
+    }
+
+    public void invalidateGuild(long guildId) {
+        guildGenerations.put(guildId, GENERATIONS.incrementAndGet());
+    }
+
+    public void invalidateMember(long guildId, long userId) {
+        resolvedCache.invalidate(new MemberKey(guildId, userId));
+    }
+
+    private static class ResolvedPermissions {
+
+        private final long version;
+        private final long generation;
+        private final PermissionBitSet allowed;
+
+        private ResolvedPermissions(long version, long generation, PermissionBitSet allowed) {
+            this.version = version;
+            this.generation = generation;
+            this.allowed = allowed;
+        }
+
+    }
+
+    private static class MemberKey {
+
+        private final long guildId;
+        private final long userId;
+
+        private MemberKey(long guildId, long userId) {
+            this.guildId = guildId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MemberKey)) return false;
+            MemberKey other = (MemberKey) obj;
+            return guildId == other.guildId && userId == other.userId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(guildId) + Long.hashCode(userId);
+        }
+
+    }
+
+}
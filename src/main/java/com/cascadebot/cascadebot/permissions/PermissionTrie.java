@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.permissions;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes permissions by the dot separated segments of their nodes so a wildcard node such as
+ * {@code cascade.module.*} only visits the permissions under {@code cascade.module} instead of every permission.
+ * The trie is built once when permissions are registered and is not modified afterwards.
+ */
+class PermissionTrie {
+
+    private final TrieNode root = new TrieNode();
+
+    void add(CascadePermission permission) {
+        TrieNode current = root;
+        for (String segment : permission.getPermissionNode().split("\\.")) {
+            current = current.children.computeIfAbsent(segment, key -> new TrieNode());
+        }
+        current.permission = permission;
+    }
+
+    /**
+     * Finds every permission matched by the node, ignoring whether the node is negated.
+     *
+     * @param node The node to match permissions against.
+     * @return The matched permissions in the order they were found.
+     */
+    Set<CascadePermission> find(PermissionNode node) {
+        Set<CascadePermission> found = new LinkedHashSet<>();
+        collect(root, node.getSegments(), 0, found, false);
+        return found;
+    }
+
+    /**
+     * Checks if the node matches any permission, ignoring whether the node is negated.
+     *
+     * @param node The node to match permissions against.
+     * @return {@code true} if at least one permission is matched.
+     */
+    boolean matchesAny(PermissionNode node) {
+        return !collect(root, node.getSegments(), 0, new LinkedHashSet<>(), true);
+    }
+
+    /**
+     * Collects the permissions under {@code current} matched by the segments from {@code index}.
+     *
+     * @return {@code false} if collection should stop, which only happens once a match is found when {@code firstOnly} is set.
+     */
+    private boolean collect(TrieNode current, String[] segments, int index, Set<CascadePermission> found, boolean firstOnly) {
+        if (index == segments.length) {
+            if (current.permission != null) {
+                found.add(current.permission);
+                return !firstOnly;
+            }
+            return true;
+        }
+        String segment = segments[index];
+        if (segment.equals("*")) {
+            for (TrieNode child : current.children.values()) {
+                if (!collectWildcard(child, segments, index, found, firstOnly)) return false;
+            }
+            return true;
+        }
+        TrieNode child = current.children.get(segment);
+        return child == null || collect(child, segments, index + 1, found, firstOnly);
+    }
+
+    // The wildcard at index has already consumed at least one segment to reach current, so try ending it here or consuming more
+    private boolean collectWildcard(TrieNode current, String[] segments, int index, Set<CascadePermission> found, boolean firstOnly) {
+        if (!collect(current, segments, index + 1, found, firstOnly)) return false;
+        for (TrieNode child : current.children.values()) {
+            if (!collectWildcard(child, segments, index, found, firstOnly)) return false;
+        }
+        return true;
+    }
+
+    private static class TrieNode {
+
+        private final Map<String, TrieNode> children = new HashMap<>();
+        private CascadePermission permission;
+
+    }
+
+}
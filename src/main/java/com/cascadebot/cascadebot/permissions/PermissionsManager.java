@@ -15,6 +15,8 @@ import com.cascadebot.cascadebot.utils.DiscordUtils;
 import com.cascadebot.shared.SecurityLevel;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Guild;
@@ -22,9 +24,12 @@ import net.dv8tion.jda.core.entities.Member;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class PermissionsManager {
@@ -33,51 +38,86 @@ public class PermissionsManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PermissionsManager.class);
 
+    // These are invalidated by PermissionEventListener when a member's roles in the official guild change
     private LoadingCache<Long, Set<Long>> officialGuildRoleIDCache = Caffeine.newBuilder()
-            .expireAfterWrite(10, TimeUnit.MINUTES)
-            .refreshAfterWrite(5, TimeUnit.MINUTES)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
             .build(DiscordUtils::getAllOfficialRoleIds);
     private LoadingCache<Long, SecurityLevel> securityLevelCache = Caffeine.newBuilder()
-            .expireAfterWrite(10, TimeUnit.MINUTES)
-            .refreshAfterWrite(5, TimeUnit.MINUTES)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
             .build(id -> Security.getLevelById(id, officialGuildRoleIDCache.get(id)));
 
-    private ConcurrentHashMap<String, CascadePermission> permissions = new ConcurrentHashMap<>();
+    // These are all built once by registerPermissions and never modified afterwards
+    private Map<String, CascadePermission> permissions = Map.of();
+    private Set<CascadePermission> allPermissions = Set.of();
     private Set<CascadePermission> defaultPermissions = Set.of();
+    private Map<Module, CascadePermission> modulePermissions = Map.of();
+    private PermissionTrie permissionTrie = new PermissionTrie();
+    private List<CascadePermission> permissionsByOrdinal = List.of(); // Permission ordinals are their index in this list
+    private List<String> permissionNodes = List.of();
+    private Map<String, Integer> ordinals = Map.of();
+    private PermissionBitSet defaultPermissionBits = PermissionBitSet.EMPTY;
+
+    private final PermissionResolver permissionResolver = new PermissionResolver(this);
 
     public void registerPermissions() {
         if (!permissions.isEmpty()) throw new IllegalStateException("Permissions have already been registered!");
 
         long startTime = System.currentTimeMillis();
 
+        Map<String, CascadePermission> registered = new LinkedHashMap<>();
+
         for (ICommandMain command : CascadeBot.INS.getCommandManager().getCommands()) {
             if (command.getPermission() == null || command instanceof ICommandRestricted) continue;
-            registerPermission(command.getPermission());
+            registerPermission(registered, command.getPermission());
             for (ICommandExecutable subCommand : command.getSubCommands()) {
-                registerPermission(subCommand.getPermission());
+                registerPermission(registered, subCommand.getPermission());
             }
         }
 
-        registerPermission(CascadePermission.of("Core Category", "module.core", true, Module.CORE));
-        registerPermission(CascadePermission.of("Info Category", "module.info", true, Module.INFORMATIONAL));
-        registerPermission(CascadePermission.of("Fun Category", "module.fun", true, Module.FUN));
+        registerPermission(registered, CascadePermission.of("Core Category", "module.core", true, Module.CORE));
+        registerPermission(registered, CascadePermission.of("Info Category", "module.info", true, Module.INFORMATIONAL));
+        registerPermission(registered, CascadePermission.of("Fun Category", "module.fun", true, Module.FUN));
 
-        registerPermission(CascadePermission.of("Reset command prefix", "prefix.reset", false, Permission.MANAGE_SERVER));
-        registerPermission(CascadePermission.of("Set command prefix", "prefix.set", false, Permission.MANAGE_SERVER));
+        registerPermission(registered, CascadePermission.of("Reset command prefix", "prefix.reset", false, Permission.MANAGE_SERVER));
+        registerPermission(registered, CascadePermission.of("Set command prefix", "prefix.set", false, Permission.MANAGE_SERVER));
 
+        PermissionTrie trie = new PermissionTrie();
+        Map<Module, CascadePermission> byModule = new EnumMap<>(Module.class);
+        for (CascadePermission permission : registered.values()) {
+            trie.add(permission);
+            if (permission.getModule() != null) {
+                byModule.putIfAbsent(permission.getModule(), permission);
+            }
+        }
 
-        LOGGER.info("{} permissions loaded in {}ms!", permissions.size(), System.currentTimeMillis() - startTime);
+        ImmutableMap.Builder<String, Integer> ordinalBuilder = ImmutableMap.builder();
+        PermissionBitSet defaultBits = PermissionBitSet.EMPTY;
+        int ordinal = 0;
+        for (CascadePermission permission : registered.values()) {
+            ordinalBuilder.put(permission.getPermissionNode(), ordinal);
+            if (permission.isDefaultPerm()) {
+                defaultBits = defaultBits.with(ordinal);
+            }
+            ordinal++;
+        }
 
-        defaultPermissions = permissions.entrySet()
-                .stream()
-                .filter(p -> p.getValue().isDefaultPerm())
-                .map(Map.Entry::getValue)
+        permissionTrie = trie;
+        permissionsByOrdinal = ImmutableList.copyOf(registered.values());
+        permissionNodes = ImmutableList.copyOf(registered.keySet());
+        ordinals = ordinalBuilder.build();
+        defaultPermissionBits = defaultBits;
+        modulePermissions = Collections.unmodifiableMap(byModule);
+        allPermissions = ImmutableSet.copyOf(registered.values());
+        defaultPermissions = allPermissions.stream()
+                .filter(CascadePermission::isDefaultPerm)
                 .collect(ImmutableSet.toImmutableSet());
+        permissions = ImmutableMap.copyOf(registered);
 
+        LOGGER.info("{} permissions loaded in {}ms!", permissions.size(), System.currentTimeMillis() - startTime);
     }
 
-    private void registerPermission(CascadePermission permission) {
-        permissions.put(permission.getPermissionNode(), permission);
+    private void registerPermission(Map<String, CascadePermission> registered, CascadePermission permission) {
+        registered.put(permission.getPermissionNode(), permission);
     }
 
     public CascadePermission getPermission(String permission) {
@@ -85,13 +125,74 @@ public class PermissionsManager {
     }
 
     public CascadePermission getPermissionFromModule(Module module) {
-        return permissions
-                .entrySet()
-                .stream()
-                .filter(entry -> entry.getValue().getModule().equals(module))
-                .map(Map.Entry::getValue)
-                .findFirst()
-                .orElse(null); // Gets the permission connected to this module or returns null
+        return modulePermissions.get(module); // Gets the permission connected to this module or returns null
+    }
+
+    /**
+     * Finds every registered permission matched by a permission node, which can contain wildcards such as
+     * {@code cascade.module.*}. A leading {@code -} on the node is ignored.
+     *
+     * @param node The permission node to match.
+     * @return The permissions matched by the node.
+     */
+    public Set<CascadePermission> findPermissions(String node) {
+        return permissionTrie.find(PermissionNode.of(node));
+    }
+
+    /**
+     * Gets the dense ordinal assigned to a permission when it was registered. Ordinals are only valid for this run
+     * of the bot, as they change when permissions are added or removed.
+     *
+     * @param permissionNode The full permission node, including the {@link #PERMISSION_PREFIX}.
+     * @return The ordinal of the permission or -1 if the permission isn't registered.
+     */
+    public int getOrdinal(String permissionNode) {
+        return ordinals.getOrDefault(permissionNode, -1);
+    }
+
+    public CascadePermission getPermissionByOrdinal(int ordinal) {
+        return permissionsByOrdinal.get(ordinal);
+    }
+
+    /**
+     * Gets the permissions in ordinal order.
+     *
+     * @return An immutable list where each permission's index is its ordinal.
+     */
+    public List<CascadePermission> getPermissionsByOrdinal() {
+        return permissionsByOrdinal;
+    }
+
+    /**
+     * Gets the set of registered permissions matched by a permission node, which can contain wildcards.
+     * A leading {@code -} on the node is ignored.
+     *
+     * @param node The full permission node to match.
+     * @return The matched permissions as a bitset of their ordinals.
+     */
+    public PermissionBitSet getPermissionBits(String node) {
+        PermissionBitSet bits = PermissionBitSet.EMPTY;
+        for (CascadePermission permission : permissionTrie.find(PermissionNode.of(node))) {
+            bits = bits.with(getOrdinal(permission.getPermissionNode()));
+        }
+        return bits;
+    }
+
+    /**
+     * Gets the permission nodes in ordinal order.
+     *
+     * @return An immutable list where each permission node's index is its ordinal.
+     */
+    public List<String> getPermissionNodes() {
+        return permissionNodes;
+    }
+
+    public PermissionBitSet getAllPermissionBits() {
+        return PermissionBitSet.range(permissionsByOrdinal.size());
+    }
+
+    public PermissionBitSet getDefaultPermissionBits() {
+        return defaultPermissionBits;
     }
 
     public boolean isValidPermission(String permission) {
@@ -99,14 +200,9 @@ public class PermissionsManager {
     }
 
     public boolean isValidPermission(Guild guild, String permission) {
-        Set<CascadePermission> permissions = getPermissions(guild);
-        if (permission.contains("*") && permission.contains(".")) {
-            PermissionNode node = new PermissionNode(permission);
-            for (CascadePermission perm : permissions) {
-                if (perm != CascadePermission.ALL_PERMISSIONS) {
-                    if (node.test(perm.getPermissionNode())) return true;
-                }
-            }
+        // Guilds can only use the registered permissions (see getPermissions), which the trie holds exactly
+        if (permission.contains("*") && permission.contains(".") && permissionTrie.matchesAny(PermissionNode.of(permission))) {
+            return true;
         }
         return getPermission(permission.substring(permission.startsWith("-") ? 1 : 0)) != null;
     }
@@ -128,7 +224,7 @@ public class PermissionsManager {
         if (defaultOnly) {
             return defaultPermissions;
         } else {
-            return permissions.values().stream().collect(ImmutableSet.toImmutableSet());
+            return allPermissions;
         }
     }
 
@@ -140,10 +236,30 @@ public class PermissionsManager {
             SecurityLevel levelToCheck = ((ICommandRestricted) command).getCommandLevel();
             return userLevel.isAuthorised(levelToCheck);
         } else {
-            // TODO: Checking command specific perms
-            return true;
+            CascadePermission permission = command.getPermission();
+            if (permission == null) return true;
+            return permissionResolver.hasPermission(member, guildData.getPermissions(), permission);
         }
-        // return false;
+    }
+
+    /**
+     * Clears the cached official guild roles and security level of a user, this should be called whenever
+     * the user's roles in the official guild change.
+     *
+     * @param userId The ID of the user.
+     */
+    public void invalidateSecurityLevel(long userId) {
+        officialGuildRoleIDCache.invalidate(userId);
+        securityLevelCache.invalidate(userId);
+    }
+
+    public void invalidateSecurityLevels() {
+        officialGuildRoleIDCache.invalidateAll();
+        securityLevelCache.invalidateAll();
+    }
+
+    public PermissionResolver getPermissionResolver() {
+        return permissionResolver;
     }
 
 
@@ -8,6 +8,8 @@ package com.cascadebot.cascadebot.permissions;
 import com.cascadebot.cascadebot.data.Config;
 import com.cascadebot.shared.SecurityLevel;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -16,6 +18,8 @@ import java.util.Set;
  */
 public class Security {
 
+    private static volatile Map<Long, SecurityLevel> levelsById; // The highest level of each role or user ID, built on first use
+
     /**
      * Returns the list of role and user IDs that will authenticate against this security level
      *
@@ -45,12 +49,30 @@ public class Security {
      * @return The highest security level the user has access to or {@code null} if they do not have access to anything.
      */
     public static SecurityLevel getLevelById(long userId, Set<Long> roleIds) {
-        for (int i = SecurityLevel.values().length - 1; i >= 0; i--) {
-            SecurityLevel level = SecurityLevel.values()[i];
-            if (Security.getIds(level).contains(userId)) return level;
-            if (roleIds.stream().anyMatch(id -> Security.getIds(level).contains(id))) return level;
+        Map<Long, SecurityLevel> levels = getLevelsById();
+        SecurityLevel highest = levels.get(userId);
+        for (Long roleId : roleIds) {
+            SecurityLevel level = levels.get(roleId);
+            if (level != null && (highest == null || level.compareTo(highest) > 0)) {
+                highest = level;
+            }
+        }
+        return highest;
+    }
+
+    private static Map<Long, SecurityLevel> getLevelsById() {
+        Map<Long, SecurityLevel> levels = levelsById;
+        if (levels == null) {
+            Map<Long, SecurityLevel> builder = new HashMap<>();
+            for (SecurityLevel level : SecurityLevel.values()) { // Levels are in ascending order so higher levels overwrite lower ones
+                for (Long id : getIds(level)) {
+                    builder.put(id, level);
+                }
+            }
+            levels = Map.copyOf(builder);
+            levelsById = levels;
         }
-        return null;
+        return levels;
     }
 
 }
@@ -5,22 +5,36 @@
 
 package com.cascadebot.cascadebot.permissions.objects;
 
-import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.google.common.collect.Sets;
 
+import java.util.Collections;
 import java.util.Set;
 
-public class Group {
+public class Group extends PermissionHolder {
 
     private String name;
-    private Set<CascadePermission> permissions = Sets.newConcurrentHashSet();
+    private Set<Long> roleIds = Sets.newConcurrentHashSet(); // Discord roles whose members are in this group
+
+    private Group() {} // This is for mongodb object serialisation
 
     public Group(String name) {
         this.name = name;
     }
 
+    boolean linkRole(long roleId) {
+        return roleIds.add(roleId);
+    }
+
+    boolean unlinkRole(long roleId) {
+        return roleIds.remove(roleId);
+    }
+
     public String getName() {
         return name;
     }
 
+    public Set<Long> getRoleIds() {
+        return Collections.unmodifiableSet(roleIds);
+    }
+
 }
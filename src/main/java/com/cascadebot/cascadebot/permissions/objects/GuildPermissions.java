@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.permissions.objects;
+
+import com.cascadebot.cascadebot.CascadeBot;
+import com.cascadebot.cascadebot.permissions.PermissionBitSet;
+import com.cascadebot.cascadebot.permissions.PermissionsManager;
+import de.bild.codec.annotations.Transient;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * The permission groups and per user permission overrides of a guild. All changes go through this class so that
+ * they are saved and so resolved permissions computed before the change are no longer used, see {@link #getVersion()}.
+ * <p>
+ * Groups and users store their individual permissions as bitsets of permission ordinals. As ordinals change when
+ * permissions are added or removed, the permission nodes the stored ordinals refer to are saved alongside them and the
+ * bitsets are remapped when they are first used with a different set of permissions. Wildcard nodes are stored as
+ * nodes and expanded when they are first used, see {@link PermissionHolder}.
+ */
+public class GuildPermissions {
+
+    private ConcurrentHashMap<String, Group> groups = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Long, User> users = new ConcurrentHashMap<>();
+    private List<String> permissionTable; // The permission node of each ordinal used in the stored bitsets
+
+    // Versions are unique across every instance, so a guild's permissions loaded again after being evicted can never
+    // have the same version as resolved permissions cached from the old instance
+    private static final AtomicLong VERSIONS = new AtomicLong(0);
+
+    @Transient
+    private volatile long version = VERSIONS.incrementAndGet();
+
+    @Transient
+    private volatile boolean mapped;
+
+    @Transient
+    private volatile boolean changed;
+
+    //region Groups
+    public Group createGroup(String name) {
+        Group group = new Group(name);
+        if (groups.putIfAbsent(name, group) != null) return null;
+        markChanged();
+        return group;
+    }
+
+    public boolean deleteGroup(String name) {
+        Group group = groups.remove(name);
+        if (group == null) return false;
+        for (User user : users.values()) {
+            user.removeGroup(group);
+        }
+        markChanged();
+        return true;
+    }
+
+    public Group getGroup(String name) {
+        ensureMapped();
+        return groups.get(name);
+    }
+
+    public Collection<Group> getGroups() {
+        ensureMapped();
+        return Collections.unmodifiableCollection(groups.values());
+    }
+
+    /**
+     * Grants the permissions matched by the node to the group, or denies them if the node is negated.
+     *
+     * @param groupName  The name of the group.
+     * @param permission The full permission node, this can contain wildcards.
+     * @return {@code true} if the group's permissions changed.
+     */
+    public boolean addGroupPermission(String groupName, String permission) {
+        return modifyGroup(groupName, group -> addPermission(group, permission));
+    }
+
+    public boolean removeGroupPermission(String groupName, String permission) {
+        return modifyGroup(groupName, group -> removePermission(group, permission));
+    }
+
+    public boolean linkRole(String groupName, long roleId) {
+        return modifyGroup(groupName, group -> group.linkRole(roleId));
+    }
+
+    public boolean unlinkRole(String groupName, long roleId) {
+        return modifyGroup(groupName, group -> group.unlinkRole(roleId));
+    }
+
+    private boolean modifyGroup(String groupName, Predicate<Group> modification) {
+        ensureMapped();
+        Group group = groups.get(groupName);
+        if (group == null || !modification.test(group)) return false;
+        markChanged();
+        return true;
+    }
+    //endregion
+
+    //region Users
+    public User getUser(long userId) {
+        ensureMapped();
+        return users.get(userId);
+    }
+
+    public boolean addUserToGroup(long userId, String groupName) {
+        Group group = getGroup(groupName);
+        return group != null && modifyUser(userId, user -> user.addGroup(group));
+    }
+
+    public boolean removeUserFromGroup(long userId, String groupName) {
+        Group group = getGroup(groupName);
+        return group != null && modifyUser(userId, user -> user.removeGroup(group));
+    }
+
+    public boolean addUserPermission(long userId, String permission) {
+        return modifyUser(userId, user -> addPermission(user, permission));
+    }
+
+    public boolean removeUserPermission(long userId, String permission) {
+        return modifyUser(userId, user -> removePermission(user, permission));
+    }
+
+    private boolean modifyUser(long userId, Predicate<User> modification) {
+        ensureMapped();
+        if (!modification.test(users.computeIfAbsent(userId, id -> new User()))) return false;
+        markChanged();
+        return true;
+    }
+    //endregion
+
+    private boolean addPermission(PermissionHolder holder, String permission) {
+        boolean negated = permission.startsWith("-");
+        String node = negated ? permission.substring(1) : permission;
+        PermissionBitSet permissions = expand(node);
+        if (permissions.isEmpty()) return false;
+        if (isWildcard(node)) {
+            return negated ? holder.denyWildcard(node, GuildPermissions::expand) : holder.grantWildcard(node, GuildPermissions::expand);
+        }
+        return negated ? holder.deny(permissions) : holder.grant(permissions);
+    }
+
+    private boolean removePermission(PermissionHolder holder, String permission) {
+        boolean negated = permission.startsWith("-");
+        String node = negated ? permission.substring(1) : permission;
+        if (isWildcard(node)) {
+            return holder.unsetWildcard(node, negated, GuildPermissions::expand);
+        }
+        return holder.unset(expand(node), negated);
+    }
+
+    private static boolean isWildcard(String node) {
+        return node.contains("*");
+    }
+
+    private static PermissionBitSet expand(String node) {
+        return getPermissionsManager().getPermissionBits(node);
+    }
+
+    //region Ordinal mapping
+    private void ensureMapped() {
+        if (mapped) return;
+        synchronized (this) {
+            if (mapped) return;
+            List<String> currentTable = getPermissionsManager().getPermissionNodes();
+            if (permissionTable != null && !permissionTable.equals(currentTable)) {
+                int[] ordinalMapping = new int[permissionTable.size()];
+                for (int i = 0; i < ordinalMapping.length; i++) {
+                    ordinalMapping[i] = getPermissionsManager().getOrdinal(permissionTable.get(i));
+                }
+                for (Group group : groups.values()) {
+                    group.remap(ordinalMapping);
+                }
+                for (User user : users.values()) {
+                    user.remap(ordinalMapping);
+                }
+                markChanged();
+            }
+            // Wildcards are always expanded against the permissions registered now, even if the table hasn't changed
+            for (Group group : groups.values()) {
+                group.expandWildcards(GuildPermissions::expand);
+            }
+            for (User user : users.values()) {
+                user.expandWildcards(GuildPermissions::expand);
+            }
+            permissionTable = currentTable;
+            mapped = true;
+        }
+    }
+
+    /**
+     * Maps each ordinal in the set to a new ordinal, dropping any that map to -1.
+     *
+     * @param permissions    The set to remap.
+     * @param ordinalMapping The new ordinal for each old ordinal.
+     * @return The remapped set.
+     */
+    static PermissionBitSet remap(PermissionBitSet permissions, int[] ordinalMapping) {
+        PermissionBitSet[] remapped = {PermissionBitSet.EMPTY};
+        permissions.forEach(ordinal -> {
+            if (ordinal < ordinalMapping.length && ordinalMapping[ordinal] != -1) {
+                remapped[0] = remapped[0].with(ordinalMapping[ordinal]);
+            }
+        });
+        return remapped[0];
+    }
+
+    private static PermissionsManager getPermissionsManager() {
+        return CascadeBot.INS.getPermissionsManager();
+    }
+    //endregion
+
+    //region Change tracking
+    private void markChanged() {
+        version = VERSIONS.incrementAndGet();
+        changed = true;
+    }
+
+    /**
+     * Gets the version of these permissions, which changes every time a group or user is changed. No two instances
+     * ever share a version.
+     *
+     * @return The current version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Clears the changed flag.
+     *
+     * @return Whether the permissions had changed since this was last called.
+     */
+    public boolean takeChanged() {
+        boolean wasChanged = changed;
+        changed = false;
+        return wasChanged;
+    }
+    //endregion
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.permissions.objects;
+
+import com.cascadebot.cascadebot.permissions.PermissionBitSet;
+import com.google.common.collect.Sets;
+import de.bild.codec.annotations.Transient;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Something that can be granted or denied permissions. Individual permissions are stored as bitsets of permission
+ * ordinals, and wildcard nodes are stored as they were given and expanded against the registered permissions each
+ * time the holder is mapped, so a wildcard also matches permissions registered after it was added.
+ * <p>
+ * An individual grant or deny always wins over a wildcard, and a wildcard deny wins over a wildcard grant.
+ * A permission is never in both the effective grants and the effective denies.
+ *
+ * @see GuildPermissions
+ */
+public abstract class PermissionHolder {
+
+    private volatile long[] grants;
+    private volatile long[] denies;
+    private Set<String> wildcardGrants = Sets.newConcurrentHashSet(); // Nodes without the leading -
+    private Set<String> wildcardDenies = Sets.newConcurrentHashSet();
+
+    @Transient
+    private volatile PermissionBitSet wildcardGrantBits = PermissionBitSet.EMPTY;
+
+    @Transient
+    private volatile PermissionBitSet wildcardDenyBits = PermissionBitSet.EMPTY;
+
+    synchronized boolean grant(PermissionBitSet permissions) {
+        return set(getIndividualGrants().union(permissions), getIndividualDenies().andNot(permissions));
+    }
+
+    synchronized boolean deny(PermissionBitSet permissions) {
+        return set(getIndividualGrants().andNot(permissions), getIndividualDenies().union(permissions));
+    }
+
+    synchronized boolean unset(PermissionBitSet permissions, boolean negated) {
+        if (negated) {
+            return set(getIndividualGrants(), getIndividualDenies().andNot(permissions));
+        }
+        return set(getIndividualGrants().andNot(permissions), getIndividualDenies());
+    }
+
+    synchronized boolean grantWildcard(String node, Function<String, PermissionBitSet> expander) {
+        boolean changed = wildcardGrants.add(node) | wildcardDenies.remove(node);
+        expandWildcards(expander);
+        return changed;
+    }
+
+    synchronized boolean denyWildcard(String node, Function<String, PermissionBitSet> expander) {
+        boolean changed = wildcardDenies.add(node) | wildcardGrants.remove(node);
+        expandWildcards(expander);
+        return changed;
+    }
+
+    /**
+     * Removes a wildcard node. Permissions the node matched that were also set individually keep their individual
+     * setting.
+     */
+    synchronized boolean unsetWildcard(String node, boolean negated, Function<String, PermissionBitSet> expander) {
+        boolean changed = negated ? wildcardDenies.remove(node) : wildcardGrants.remove(node);
+        expandWildcards(expander);
+        return changed;
+    }
+
+    synchronized void remap(int[] ordinalMapping) {
+        set(GuildPermissions.remap(getIndividualGrants(), ordinalMapping), GuildPermissions.remap(getIndividualDenies(), ordinalMapping));
+    }
+
+    /**
+     * Expands the wildcard nodes into the permissions they currently match.
+     *
+     * @param expander Gets the permissions matched by a node.
+     */
+    synchronized void expandWildcards(Function<String, PermissionBitSet> expander) {
+        wildcardGrantBits = expand(wildcardGrants, expander);
+        wildcardDenyBits = expand(wildcardDenies, expander);
+    }
+
+    private static PermissionBitSet expand(Set<String> nodes, Function<String, PermissionBitSet> expander) {
+        PermissionBitSet permissions = PermissionBitSet.EMPTY;
+        for (String node : nodes) {
+            permissions = permissions.union(expander.apply(node));
+        }
+        return permissions;
+    }
+
+    private boolean set(PermissionBitSet newGrants, PermissionBitSet newDenies) {
+        boolean changed = !newGrants.equals(getIndividualGrants()) || !newDenies.equals(getIndividualDenies());
+        grants = newGrants.toLongArray();
+        denies = newDenies.toLongArray();
+        return changed;
+    }
+
+    /**
+     * Gets every permission granted, individually or through a wildcard.
+     *
+     * @return The ordinals of the granted permissions.
+     */
+    public PermissionBitSet getGrants() {
+        return getIndividualGrants().union(wildcardGrantBits.andNot(getIndividualDenies()).andNot(wildcardDenyBits));
+    }
+
+    /**
+     * Gets every permission denied, individually or through a wildcard.
+     *
+     * @return The ordinals of the denied permissions.
+     */
+    public PermissionBitSet getDenies() {
+        return getIndividualDenies().union(wildcardDenyBits.andNot(getIndividualGrants()));
+    }
+
+    public PermissionBitSet getIndividualGrants() {
+        return PermissionBitSet.valueOf(grants);
+    }
+
+    public PermissionBitSet getIndividualDenies() {
+        return PermissionBitSet.valueOf(denies);
+    }
+
+    public Set<String> getWildcardGrants() {
+        return Collections.unmodifiableSet(wildcardGrants);
+    }
+
+    public Set<String> getWildcardDenies() {
+        return Collections.unmodifiableSet(wildcardDenies);
+    }
+
+}
@@ -5,31 +5,25 @@
 
 package com.cascadebot.cascadebot.permissions.objects;
 
-import com.cascadebot.cascadebot.permissions.CascadePermission;
 import com.google.common.collect.Sets;
 
+import java.util.Collections;
 import java.util.Set;
 
-public class User {
+public class User extends PermissionHolder {
 
     private final Set<String> groups = Sets.newConcurrentHashSet();
-    private final Set<CascadePermission> permissions = Sets.newConcurrentHashSet();
 
-    public boolean addGroup(Group group) {
+    boolean addGroup(Group group) {
         return groups.add(group.getName());
     }
 
-    public boolean removeGroup(Group group) {
+    boolean removeGroup(Group group) {
         return groups.remove(group.getName());
     }
 
-
     public Set<String> getGroups() {
-        return groups;
-    }
-
-    public Set<CascadePermission> getPermissions() {
-        return permissions;
+        return Collections.unmodifiableSet(groups);
     }
 
 }
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.tasks;
+
+import com.cascadebot.cascadebot.CascadeBot;
+
+/**
+ * Clears the reactions of buttoned messages whose buttons have been evicted from the cache, in small batches
+ * so a large eviction doesn't flood the REST queue.
+ */
+public class ButtonReactionClearTask extends Task {
+
+    private static final int BATCH_SIZE = 25;
+
+    public ButtonReactionClearTask() {
+        super("button-reaction-clear");
+    }
+
+    @Override
+    protected void execute() {
+        CascadeBot.INS.getButtonsCache().clearEvictedReactions(BATCH_SIZE);
+    }
+
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.tasks;
+
+import com.cascadebot.cascadebot.data.mapping.GuildDataMapper;
+
+/**
+ * Periodically writes all changed guild data to the database in one bulk write.
+ */
+public class GuildSaveTask extends Task {
+
+    public GuildSaveTask() {
+        super("guild-save");
+    }
+
+    @Override
+    protected void execute() {
+        GuildDataMapper.saveDirty();
+    }
+
+}
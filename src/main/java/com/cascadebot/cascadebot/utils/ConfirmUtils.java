@@ -55,7 +55,7 @@ public class ConfirmUtils {
                 }));
                 group.addButtonsToMessage(sentMessage);
                 group.setMessage(sentMessage.getIdLong());
-                guildData.addButtonGroup(channel, sentMessage, group);
+                CascadeBot.INS.getButtonsCache().addButtonGroup(channel, sentMessage, group);
             }, buttonDelay, TimeUnit.MILLISECONDS);
         }
 
@@ -139,7 +139,8 @@ public class DiscordUtils {
 
     public static Set<Long> getAllOfficialRoleIds(long userID) {
         if (Config.INS.getOfficialServerId() != -1 && getOfficialGuild() != null) {
-            return getAllRoleIds(getOfficialGuild().getMemberById(userID));
+            Member member = getOfficialGuild().getMemberById(userID);
+            return member == null ? Set.of() : getAllRoleIds(member);
         } else {
             return Set.of();
         }
@@ -8,7 +8,6 @@ package com.cascadebot.cascadebot.utils;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import net.dv8tion.jda.core.entities.MessageEmbed;
-import org.apache.commons.lang3.StringUtils;
 
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
@@ -18,73 +17,85 @@ import java.util.List;
 public class FormatUtils {
 
     //region Table methods
-    public static String makeAsciiTable(java.util.List<String> headers, java.util.List<java.util.List<String>> table, String footer) {
-        StringBuilder sb = new StringBuilder();
-        int padding = 1;
+    public static String makeAsciiTable(List<String> headers, List<List<String>> table, String footer) {
+        return makeAsciiTable(headers, table, footer, 0, table.size());
+    }
+
+    /**
+     * Renders a range of a table's rows as an ascii table, sizing the columns to fit only the rows in the range.
+     * The column widths are worked out once and everything is written straight into one pre-sized builder.
+     *
+     * @param headers The column headings.
+     * @param table   The rows of the table.
+     * @param footer  The footer to display, or {@code null} for no footer.
+     * @param fromRow The index of the first row to render (inclusive).
+     * @param toRow   The index of the last row to render (exclusive).
+     * @return The rendered table wrapped in a markdown code block.
+     */
+    public static String makeAsciiTable(List<String> headers, List<List<String>> table, String footer, int fromRow, int toRow) {
         int[] widths = new int[headers.size()];
         for (int i = 0; i < widths.length; i++) {
-            widths[i] = 0;
+            widths[i] = headers.get(i).length();
         }
-        for (int i = 0; i < headers.size(); i++) {
-            if (headers.get(i).length() > widths[i]) {
-                widths[i] = headers.get(i).length();
+        for (int row = fromRow; row < toRow; row++) {
+            List<String> cells = table.get(row);
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = Math.max(widths[i], cells.get(i).length());
             }
         }
-        for (java.util.List<String> row : table) {
-            for (int i = 0; i < row.size(); i++) {
-                String cell = row.get(i);
-                if (cell.length() > widths[i]) {
-                    widths[i] = cell.length();
-                }
-            }
-        }
-        sb.append("```").append("md").append("\n");
-        StringBuilder formatLine = new StringBuilder("|");
+
+        int lineLength = 2; // The leading "|" and the new line
         for (int width : widths) {
-            formatLine.append(" %-").append(width).append("s |");
+            lineLength += width + 3;
         }
-        formatLine.append("\n");
-        sb.append(appendSeparatorLine(padding, widths));
-        sb.append(String.format(formatLine.toString(), headers.toArray()));
-        sb.append(appendSeparatorLine(padding, widths));
-        for (java.util.List<String> row : table) {
-            sb.append(String.format(formatLine.toString(), row.toArray()));
+        int footerLength = footer == null ? 0 : lineLength * 2 + footer.length();
+        StringBuilder sb = new StringBuilder(lineLength * (toRow - fromRow + 4) + footerLength + 9);
+
+        sb.append("```md\n");
+        appendSeparatorLine(sb, widths);
+        appendRow(sb, headers, widths);
+        appendSeparatorLine(sb, widths);
+        for (int row = fromRow; row < toRow; row++) {
+            appendRow(sb, table.get(row), widths);
         }
         if (footer != null) {
-            sb.append(appendSeparatorLine(padding, widths));
-            sb.append(getFooter(footer, padding, widths));
+            appendSeparatorLine(sb, widths);
+            appendFooter(sb, footer, lineLength - 3);
         }
-        sb.append(appendSeparatorLine(padding, widths));
+        appendSeparatorLine(sb, widths);
         sb.append("```");
         return sb.toString();
     }
 
-    private static String appendSeparatorLine(int padding, int... sizes) {
-        boolean first = true;
-        StringBuilder ret = new StringBuilder();
-        for (int size : sizes) {
-            if (first) {
-                first = false;
-                ret.append("+").append(StringUtils.repeat("-", size + padding * 2));
-            } else {
-                ret.append("+").append(StringUtils.repeat("-", size + padding * 2));
-            }
+    private static void appendSeparatorLine(StringBuilder sb, int[] widths) {
+        for (int width : widths) {
+            sb.append('+');
+            appendRepeated(sb, '-', width + 2);
         }
-        return ret.append("+").append("\n").toString();
+        sb.append("+\n");
     }
 
-    private static String getFooter(String footer, int padding, int... sizes) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("|");
-        int total = 0;
-        for (int i = 0; i < sizes.length; i++) {
-            int size = sizes[i];
-            total += size + (i == sizes.length - 1 ? 0 : 1) + padding * 2;
+    private static void appendRow(StringBuilder sb, List<String> cells, int[] widths) {
+        sb.append('|');
+        for (int i = 0; i < widths.length; i++) {
+            String cell = cells.get(i);
+            sb.append(' ').append(cell);
+            appendRepeated(sb, ' ', widths[i] - cell.length());
+            sb.append(" |");
         }
-        sb.append(footer);
-        sb.append(StringUtils.repeat(" ", total - footer.length()));
+        sb.append('\n');
+    }
+
+    private static void appendFooter(StringBuilder sb, String footer, int width) {
+        sb.append('|').append(footer);
+        appendRepeated(sb, ' ', width - footer.length());
         sb.append("|\n");
-        return sb.toString();
+    }
+
+    private static void appendRepeated(StringBuilder sb, char c, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
     }
     //endregion
 
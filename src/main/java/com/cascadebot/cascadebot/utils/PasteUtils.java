@@ -7,43 +7,111 @@ package com.cascadebot.cascadebot.utils;
 
 import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.data.Config;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.MediaType;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.slf4j.MarkerFactory;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class PasteUtils {
 
-    public static String paste(String paste) {
-        Request request = new Request.Builder()
-                .url(Config.INS.getHasteServer())
-                .post(RequestBody.create(MediaType.parse("application/text"), paste))
-                .build();
+    // Pastes by the SHA-256 of their content, so the same stack trace from an error storm is only uploaded once
+    private static final Cache<String, CompletableFuture<String>> PASTES = Caffeine.newBuilder()
+            .maximumSize(500)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+    private static final RateLimiter UPLOAD_LIMITER = RateLimiter.create(2); // Uploads per second
+
+    /**
+     * Uploads the paste to the haste server without blocking. Identical pastes share the same upload and link,
+     * and new uploads are rate limited so an exception storm can't hammer the haste server.
+     *
+     * @param paste The content to paste.
+     * @return A future that completes with the link to the paste, or an empty string if it couldn't be uploaded.
+     */
+    public static CompletableFuture<String> paste(String paste) {
+        String hash = Hashing.sha256().hashString(paste, StandardCharsets.UTF_8).toString();
+        boolean[] created = {false};
+        CompletableFuture<String> future = PASTES.asMap().computeIfAbsent(hash, key -> {
+            created[0] = true;
+            return new CompletableFuture<>();
+        });
+        if (!created[0]) return future;
+
+        if (!UPLOAD_LIMITER.tryAcquire()) {
+            CascadeBot.LOGGER.warn(MarkerFactory.getMarker("HASTEBIN"), "Too many pastes, skipping upload!");
+            fail(hash, future);
+            return future;
+        }
 
         try {
-            Response response = CascadeBot.INS.getHttpClient().newCall(request).execute();
-            JsonParser parser = new JsonParser();
-            if (response.body() != null) {
-                JsonObject object = parser.parse(response.body().string()).getAsJsonObject();
-                return Config.INS.getHasteLink() + object.get("key").getAsString();
-            }
-        } catch (IOException e) {
+            Request request = new Request.Builder()
+                    .url(Config.INS.getHasteServer())
+                    .post(RequestBody.create(MediaType.parse("application/text"), paste))
+                    .build();
+            CascadeBot.INS.getHttpClient().newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    CascadeBot.LOGGER.error(MarkerFactory.getMarker("HASTEBIN"), "Error while trying to post!", e);
+                    fail(hash, future);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (ResponseBody body = response.body()) {
+                        if (body == null) {
+                            fail(hash, future);
+                            return;
+                        }
+                        JsonObject object = new JsonParser().parse(body.string()).getAsJsonObject();
+                        future.complete(Config.INS.getHasteLink() + object.get("key").getAsString());
+                    } catch (IOException | RuntimeException e) {
+                        CascadeBot.LOGGER.error(MarkerFactory.getMarker("HASTEBIN"), "Error while trying to post!", e);
+                        fail(hash, future);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // A bad haste server URL or a client that has shut down would otherwise leave the future pending forever
             CascadeBot.LOGGER.error(MarkerFactory.getMarker("HASTEBIN"), "Error while trying to post!", e);
+            fail(hash, future);
         }
-        return "";
+        return future;
+    }
+
+    private static void fail(String hash, CompletableFuture<String> future) {
+        PASTES.asMap().remove(hash, future); // Don't cache failures so the next paste tries again
+        future.complete("");
     }
 
+    /**
+     * Passes the message to the action, or a link to it on the haste server if it is longer than the max length.
+     * If the message can't be uploaded it is cut down to the max length instead.
+     *
+     * @param message   The message.
+     * @param maxLength The max length of message to pass without pasting it.
+     * @param action    The action to run with the message or link.
+     */
     public static void pasteIfLong(String message, int maxLength, Consumer<String> action) {
         if (message.length() > maxLength) {
-            action.accept(paste(message));
+            paste(message).thenAccept(link -> action.accept(link.isEmpty() ? message.substring(0, maxLength) : link));
         } else {
             action.accept(message);
         }
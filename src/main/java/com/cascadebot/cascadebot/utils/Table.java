@@ -22,6 +22,8 @@ public final class Table {
     private final List<List<String>> body;
     private final String footer;
 
+    private volatile String rendered; // Lazily rendered by toString, the table can't change so this never needs clearing
+
     private Table(List<String> headings, List<List<String>> body, String footer) {
         Checks.notNull(headings, "headings");
         Checks.notNull(body, "body");
@@ -37,7 +39,7 @@ public final class Table {
      * @param body A list of rows for the table.
      * @return An immutable Table with the respective column headings and body.
      */
-    public Table of(List<String> headings, List<List<String>> body) {
+    public static Table of(List<String> headings, List<List<String>> body) {
         return new Table(headings, body, null);
     }
 
@@ -49,7 +51,7 @@ public final class Table {
      * @param footer The footer to display.
      * @return An immutable Table with the respective column headings, body and footer.
      */
-    public Table of(List<String> headings, List<List<String>> body, String footer) {
+    public static Table of(List<String> headings, List<List<String>> body, String footer) {
         return new Table(headings, body, footer);
     }
 
@@ -81,14 +83,45 @@ public final class Table {
         return footer;
     }
 
+    /**
+     * Creates a table containing a range of this table's rows, with the same headings and footer.
+     * The rows are shared with this table rather than copied.
+     *
+     * @param fromIndex The index of the first row (inclusive).
+     * @param toIndex   The index of the last row (exclusive).
+     * @return An immutable Table containing the rows in the range.
+     */
+    public Table getRows(int fromIndex, int toIndex) {
+        return new Table(headings, body.subList(fromIndex, toIndex), footer);
+    }
+
+    /**
+     * Creates a string representation of a range of this table's rows using
+     * {@link FormatUtils#makeAsciiTable(List, List, String, int, int)}, without creating a table for the range.
+     *
+     * @param fromIndex The index of the first row (inclusive).
+     * @param toIndex   The index of the last row (exclusive).
+     * @return A string representation of the rows in the range.
+     */
+    public String render(int fromIndex, int toIndex) {
+        Checks.check(fromIndex >= 0 && fromIndex <= toIndex && toIndex <= body.size(), "Row range is out of bounds");
+        return FormatUtils.makeAsciiTable(headings, body, footer, fromIndex, toIndex);
+    }
+
     /**
      * Creates a string representations of the table using {@link FormatUtils#makeAsciiTable(List, List, String)}.
+     * The table is only rendered the first time this is called, later calls return the same string.
      *
      * @return A string representation of the table.
      */
     @Override
     public String toString() {
-        return FormatUtils.makeAsciiTable(headings, body, footer);
+        String table = rendered;
+        if (table == null) {
+            table = FormatUtils.makeAsciiTable(headings, body, footer);
+            rendered = table;
+        }
+        return table;
     }
 
     public TableBuilder edit() {
@@ -7,6 +7,7 @@ package com.cascadebot.cascadebot.utils.buttons;
 
 import net.dv8tion.jda.core.entities.Emote;
 import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.requests.RestAction;
 
 public abstract class Button {
 
@@ -16,7 +17,24 @@ public abstract class Button {
         this.runnable = runnable;
     }
 
-    public abstract void addReaction(Message message);
+    /**
+     * Creates the action that adds this button's reaction to a message, it is not queued.
+     *
+     * @param message The message to add the reaction to.
+     * @return The action adding the reaction.
+     */
+    public abstract RestAction<Void> addReaction(Message message);
+
+    /**
+     * Gets the key of this button's emote, this matches {@link ButtonGroup#getReactionKey(net.dv8tion.jda.core.entities.MessageReaction.ReactionEmote)}.
+     *
+     * @return The emote ID for emote buttons or the unicode for unicode buttons.
+     */
+    public abstract String getReactionKey();
+
+    public IButtonRunnable getRunnable() {
+        return runnable;
+    }
 
     public static class EmoteButton extends Button {
 
@@ -28,8 +46,13 @@ public abstract class Button {
         }
 
         @Override
-        public void addReaction(Message message) {
-            message.addReaction(emote).queue();
+        public RestAction<Void> addReaction(Message message) {
+            return message.addReaction(emote);
+        }
+
+        @Override
+        public String getReactionKey() {
+            return emote.getId();
         }
 
     }
@@ -44,8 +67,13 @@ public abstract class Button {
         }
 
         @Override
-        public void addReaction(Message message) {
-            message.addReaction(unicode).queue();
+        public RestAction<Void> addReaction(Message message) {
+            return message.addReaction(unicode);
+        }
+
+        @Override
+        public String getReactionKey() {
+            return unicode;
         }
 
     }
@@ -7,13 +7,20 @@ package com.cascadebot.cascadebot.utils.buttons;
 
 import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.utils.DiscordUtils;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
+import com.google.common.collect.ImmutableMap;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.MessageReaction;
 import net.dv8tion.jda.core.entities.TextChannel;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class ButtonGroup {
 
@@ -21,7 +28,10 @@ public class ButtonGroup {
     private long ownerId;
     private long guildId;
 
+    private long channelId;
     private long messageId;
+    private volatile Message message; // The last known state of the buttoned message, so clicks don't need to fetch it
+    private volatile Map<String, IButtonRunnable> runnables; // Reaction key -> runnable, built from the buttons when first needed
 
     public ButtonGroup(long ownerId, long guildId) {
         buttons = new ArrayList<>();
@@ -31,6 +41,7 @@ public class ButtonGroup {
 
     public void addButton(Button button) {
         buttons.add(button);
+        runnables = null;
     }
 
     public Member getOwner() {
@@ -45,31 +56,81 @@ public class ButtonGroup {
         return messageId;
     }
 
+    public Message getMessage() {
+        return message;
+    }
+
+    public void setMessage(Message message) {
+        this.message = message;
+    }
+
+    void setChannelId(long channelId) {
+        this.channelId = channelId;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
     public List<Button> getButtons() {
-        return buttons;
+        return Collections.unmodifiableList(buttons);
     }
 
     public void handleButton(Member clicker, TextChannel channel, Message buttonMessage, MessageReaction.ReactionEmote emote) {
-        for (Button button : buttons) {
-            if (button instanceof Button.EmoteButton && emote.isEmote()) {
-                if (((Button.EmoteButton) button).emote.equals(emote.getEmote())) {
-                    button.runnable.run(clicker, channel, buttonMessage);
-                    return;
-                }
-            } else if (button instanceof Button.UnicodeButton && !emote.isEmote()) {
-                if (((Button.UnicodeButton) button).unicode.equals(emote.getName())) {
-                    button.runnable.run(clicker, channel, buttonMessage);
-                    return;
-                }
+        IButtonRunnable runnable = getRunnables().get(getReactionKey(emote));
+        if (runnable != null) {
+            runnable.run(clicker, channel, buttonMessage);
+        }
+    }
+
+    /**
+     * Whether a reaction's emote is one of this group's buttons.
+     *
+     * @param emote The emote of the reaction.
+     * @return {@code true} if the emote is a button.
+     */
+    public boolean isButton(MessageReaction.ReactionEmote emote) {
+        return getRunnables().containsKey(getReactionKey(emote));
+    }
+
+    private Map<String, IButtonRunnable> getRunnables() {
+        Map<String, IButtonRunnable> lookup = runnables;
+        if (lookup == null) {
+            Map<String, IButtonRunnable> builder = new LinkedHashMap<>();
+            for (Button button : buttons) {
+                builder.putIfAbsent(button.getReactionKey(), button.getRunnable()); // The first button for an emote wins
             }
+            lookup = ImmutableMap.copyOf(builder);
+            runnables = lookup;
         }
+        return lookup;
+    }
+
+    /**
+     * Gets the key identifying a reaction's emote, which is the emote ID for custom emotes and the unicode otherwise.
+     *
+     * @param emote The emote to get the key of.
+     * @return The key of the emote.
+     */
+    public static String getReactionKey(MessageReaction.ReactionEmote emote) {
+        return emote.isEmote() ? emote.getEmote().getId() : emote.getName();
     }
 
-    public void addButtonsToMessage(Message message) {
-        if (buttons == null) return;
-        for (Button button : buttons) {
-            button.addReaction(message);
+    /**
+     * Adds the reactions for every button to the message. All of the reactions are queued straight away, they are
+     * still added in button order as requests to the same message are sent in the order they are queued.
+     *
+     * @param message The message to add the buttons to.
+     * @return A future that completes once every reaction has been added.
+     */
+    public CompletableFuture<Void> addButtonsToMessage(Message message) {
+        if (buttons == null) return CompletableFuture.completedFuture(null);
+        CompletableFuture<?>[] futures = new CompletableFuture[buttons.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CascadeBot.INS.getRestScheduler().submit(RestPriority.REACTION, RestRoute.REACTION, message.getChannel().getIdLong(),
+                    buttons.get(i).addReaction(message));
         }
+        return CompletableFuture.allOf(futures);
     }
 
 
@@ -5,44 +5,217 @@
 
 package com.cascadebot.cascadebot.utils.buttons;
 
+import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.utils.DiscordUtils;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import net.dv8tion.jda.core.Permission;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.TextChannel;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
-public class ButtonsCache extends HashMap<Long, LinkedHashMap<Long, ButtonGroup>> { //Long 1 is channel id. long 2 is message id.
+/**
+ * Caches the button groups of every buttoned message, keyed by message ID so handling a reaction is a single lookup
+ * that never needs the guild's data. The cache is bounded by the total amount of buttons and by how long since each
+ * group was last used, and each channel keeps at most {@code maxSize} groups. This is safe to use from any thread.
+ * <p>
+ * When a group is evicted the reactions on its message are cleared in the background in batches,
+ * see {@link #clearEvictedReactions(int)}. At most {@value #MAX_PENDING_CLEARS} clears wait at once, after which the
+ * oldest are dropped.
+ */
+public class ButtonsCache {
+
+    private static final long MAX_WEIGHT = 20_000; // Roughly the max amount of buttons across all guilds
+    private static final int MAX_PENDING_CLEARS = 5_000;
+
+    private final Deque<ButtonGroup> reactionsToClear = new ArrayDeque<>(); // Oldest first, guarded by itself
+    private final LongAdder droppedClears = new LongAdder();
+
+    private final Cache<Long, ButtonGroup> groups = Caffeine.newBuilder()
+            .maximumWeight(MAX_WEIGHT)
+            .weigher((Long messageId, ButtonGroup group) -> group.getButtons().size() + 1)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .removalListener((Long messageId, ButtonGroup group, RemovalCause cause) -> {
+                if (group == null || messageId == null || cause == RemovalCause.REPLACED) return;
+                removeFromChannel(group.getChannelId(), messageId);
+                if (cause.wasEvicted()) {
+                    queueReactionClear(group);
+                }
+            })
+            .recordStats()
+            .build();
 
-    private int maxSize;
+    private final int maxSize;
+    // Message IDs per channel oldest first, only changed inside compute calls. Channels without groups are removed.
+    private final Map<Long, Set<Long>> channelMessages = new ConcurrentHashMap<>();
 
     public ButtonsCache(int maxSize) {
         this.maxSize = maxSize;
     }
 
-    public void put(Long channelId, Long messageId, ButtonGroup buttonGroup) {
-        if (containsKey(channelId) && get(channelId) != null) {
-            get(channelId).put(messageId, buttonGroup);
-        } else {
-            put(channelId, new LinkedHashMap<>() {
-                @Override
-                protected boolean removeEldestEntry(final Map.Entry<Long, ButtonGroup> eldest) {
-                    if (size() > maxSize) {
-                        DiscordUtils.getTextChannelById(channelId).getMessageById(eldest.getKey()).queue(buttonedMessage -> buttonedMessage.clearReactions().queue());
-                        return true;
-                    }
-                    return false;
+    public void addButtonGroup(MessageChannel channel, Message message, ButtonGroup group) {
+        group.setMessage(message);
+        put(channel.getIdLong(), message.getIdLong(), group);
+    }
+
+    public void put(long channelId, long messageId, ButtonGroup buttonGroup) {
+        buttonGroup.setChannelId(channelId);
+        buttonGroup.setMessage(messageId);
+        groups.put(messageId, buttonGroup);
+        channelMessages.compute(channelId, (id, messages) -> {
+            if (messages == null) {
+                messages = new LinkedHashSet<>();
+            }
+            messages.add(messageId);
+            Iterator<Long> iterator = messages.iterator();
+            while (messages.size() > maxSize) {
+                ButtonGroup eldest = groups.asMap().remove(iterator.next());
+                iterator.remove();
+                if (eldest != null) {
+                    queueReactionClear(eldest);
                 }
-            });
-            get(channelId).put(messageId, buttonGroup);
+            }
+            return messages;
+        });
+    }
+
+    private void removeFromChannel(long channelId, long messageId) {
+        channelMessages.computeIfPresent(channelId, (id, messages) -> {
+            // The message may have been given a new group since this one was removed
+            if (!groups.asMap().containsKey(messageId)) {
+                messages.remove(messageId);
+            }
+            return messages.isEmpty() ? null : messages;
+        });
+    }
+
+    private void queueReactionClear(ButtonGroup group) {
+        synchronized (reactionsToClear) {
+            // Clearing reactions is only cosmetic, so if we can't keep up drop the oldest rather than growing forever
+            if (reactionsToClear.size() >= MAX_PENDING_CLEARS) {
+                reactionsToClear.pollFirst();
+                droppedClears.increment();
+            }
+            reactionsToClear.addLast(group);
         }
     }
 
-    public boolean remove(Long channelId, Long messageId) {
-        if (containsKey(channelId)) {
-            return get(channelId).remove(messageId) != null; // Only return true if there was a previous mapping for the key
-        } else {
-            return false;
+    /**
+     * Gets the button group of a message.
+     *
+     * @param messageId The ID of the message.
+     * @return The button group or {@code null} if the message has no cached buttons.
+     */
+    public ButtonGroup get(long messageId) {
+        return groups.getIfPresent(messageId);
+    }
+
+    /**
+     * Gets the button group of a message in a channel.
+     *
+     * @param channelId The ID of the channel the message is in.
+     * @param messageId The ID of the message.
+     * @return The button group or {@code null} if the message has no cached buttons.
+     */
+    public ButtonGroup get(long channelId, long messageId) {
+        ButtonGroup group = groups.getIfPresent(messageId);
+        return group != null && group.getChannelId() == channelId ? group : null;
+    }
+
+    /**
+     * Removes the button group of a message without clearing its reactions, this is used when the message is deleted.
+     *
+     * @param channelId The ID of the channel the message is in.
+     * @param messageId The ID of the message.
+     * @return {@code true} if the message had a button group.
+     */
+    public boolean remove(long channelId, long messageId) {
+        if (get(channelId, messageId) == null) return false;
+        boolean removed = groups.asMap().remove(messageId) != null;
+        removeFromChannel(channelId, messageId);
+        return removed;
+    }
+
+    /**
+     * Removes every cached button group in a channel without clearing their reactions.
+     *
+     * @param channelId The ID of the channel.
+     */
+    public void removeChannel(long channelId) {
+        Set<Long> messages = channelMessages.remove(channelId);
+        if (messages == null) return;
+        groups.invalidateAll(messages);
+    }
+
+    /**
+     * Clears the reactions on messages whose button groups have been evicted. Each message's reactions are cleared
+     * with a single request, without fetching the message first.
+     *
+     * @param maxMessages The max amount of messages to clear in this batch.
+     * @return The amount of messages that reactions were cleared on.
+     */
+    public int clearEvictedReactions(int maxMessages) {
+        int cleared = 0;
+        ButtonGroup group;
+        while (cleared < maxMessages && (group = pollReactionClear()) != null) {
+            MessageChannel channel = DiscordUtils.getTextChannelById(group.getChannelId());
+            if (!(channel instanceof TextChannel)) continue;
+            TextChannel textChannel = (TextChannel) channel;
+            if (!textChannel.getGuild().getSelfMember().hasPermission(textChannel, Permission.MESSAGE_MANAGE)) continue;
+            // Failures are ignored, the message was probably deleted so there is nothing to clear
+            CascadeBot.INS.getRestScheduler().submit(RestPriority.CLEANUP, RestRoute.REACTION, textChannel.getIdLong(),
+                    textChannel.clearReactionsById(group.getMessageId()));
+            cleared++;
+        }
+        return cleared;
+    }
+
+    private ButtonGroup pollReactionClear() {
+        synchronized (reactionsToClear) {
+            return reactionsToClear.pollFirst();
         }
     }
 
+    /**
+     * Gets the hit, miss and eviction counts of the button cache.
+     *
+     * @return The cache statistics.
+     */
+    public CacheStats getStats() {
+        return groups.stats();
+    }
+
+    public long getCachedGroupCount() {
+        return groups.estimatedSize();
+    }
+
+    public int getPendingReactionClears() {
+        synchronized (reactionsToClear) {
+            return reactionsToClear.size();
+        }
+    }
+
+    /**
+     * Gets the amount of reaction clears dropped because too many were waiting.
+     *
+     * @return The total amount of dropped reaction clears.
+     */
+    public long getDroppedReactionClears() {
+        return droppedClears.sum();
+    }
+
 }
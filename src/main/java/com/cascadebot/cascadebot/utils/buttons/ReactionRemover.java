@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.utils.buttons;
+
+import com.cascadebot.cascadebot.CascadeBot;
+import com.cascadebot.cascadebot.tasks.Task;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
+import net.dv8tion.jda.core.Permission;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageReaction;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.User;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes users' button reactions after a short delay, collecting every removal queued for a message in that time.
+ * <p>
+ * If more reactions are waiting to be removed from a message than it has buttons, for example when several users are
+ * paging through the same message, and they are all button reactions, every reaction is cleared with one request and
+ * the buttons are added back, which costs fewer requests than removing each reaction. Otherwise each reaction is
+ * removed on its own.
+ * <p>
+ * A user clicking the same button again before their reaction is removed takes the reaction off instead, which is
+ * handled as a click by {@link #cancel(long, MessageReaction, User)}.
+ */
+public class ReactionRemover {
+
+    private final long delay;
+    private final Map<Long, PendingRemovals> pending = new ConcurrentHashMap<>(); // Message ID -> removals
+
+    /**
+     * @param delay How long in milliseconds to wait before removing reactions from a message.
+     */
+    public ReactionRemover(long delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Queues a user's reaction on a buttoned message to be removed.
+     *
+     * @param group    The button group of the message.
+     * @param reaction The reaction to remove.
+     * @param user     The user who reacted.
+     */
+    public void queue(ButtonGroup group, MessageReaction reaction, User user) {
+        long messageId = group.getMessageId();
+        boolean[] schedule = {false};
+        pending.compute(messageId, (id, removals) -> {
+            if (removals == null) {
+                removals = new PendingRemovals(group, reaction.getTextChannel());
+                schedule[0] = true;
+            }
+            removals.reactions.put(getKey(reaction, user), new Removal(reaction, user));
+            if (!group.isButton(reaction.getReactionEmote())) {
+                removals.onlyButtons = false;
+            }
+            return removals;
+        });
+        if (schedule[0]) {
+            Task.getScheduler().schedule(() -> flush(messageId), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Cancels the pending removal of a user's reaction because the user took it off themselves.
+     *
+     * @param messageId The ID of the message.
+     * @param reaction  The reaction that was taken off.
+     * @param user      The user who took it off.
+     * @return {@code true} if the reaction was waiting to be removed, so the user clicked the button again.
+     */
+    public boolean cancel(long messageId, MessageReaction reaction, User user) {
+        boolean[] cancelled = {false};
+        pending.computeIfPresent(messageId, (id, removals) -> {
+            cancelled[0] = removals.reactions.remove(getKey(reaction, user)) != null;
+            return removals.reactions.isEmpty() ? null : removals;
+        });
+        return cancelled[0];
+    }
+
+    /**
+     * Cancels every pending removal on a message, this is used when the message is deleted.
+     *
+     * @param messageId The ID of the message.
+     */
+    public void cancelAll(long messageId) {
+        pending.remove(messageId);
+    }
+
+    private void flush(long messageId) {
+        PendingRemovals removals = pending.remove(messageId);
+        if (removals == null) return;
+        TextChannel channel = removals.channel;
+        Message message = removals.group.getMessage();
+        // Clearing is one request and adding the buttons back is one for each button. Clearing would also remove
+        // other reactions so it's only done when every reaction we know of is a button.
+        if (message != null && removals.onlyButtons && removals.reactions.size() > removals.group.getButtons().size() + 1
+                && channel.getGuild().getSelfMember().hasPermission(channel, Permission.MESSAGE_MANAGE)) {
+            CascadeBot.INS.getRestScheduler().submit(RestPriority.CLEANUP, RestRoute.REACTION, channel.getIdLong(), channel.clearReactionsById(messageId))
+                    .thenRun(() -> removals.group.addButtonsToMessage(message));
+            return;
+        }
+        for (Removal removal : removals.reactions.values()) {
+            // Failures are ignored, the message or reaction is already gone
+            CascadeBot.INS.getRestScheduler().submit(RestPriority.CLEANUP, RestRoute.REACTION, channel.getIdLong(),
+                    removal.reaction.removeReaction(removal.user));
+        }
+    }
+
+    private static String getKey(MessageReaction reaction, User user) {
+        return ButtonGroup.getReactionKey(reaction.getReactionEmote()) + ":" + user.getIdLong();
+    }
+
+    private static class PendingRemovals {
+
+        private final ButtonGroup group;
+        private final TextChannel channel;
+        private final Map<String, Removal> reactions = new LinkedHashMap<>(); // Removals by reaction and user
+        private boolean onlyButtons = true; // Whether every reaction queued for the message was a button
+
+        private PendingRemovals(ButtonGroup group, TextChannel channel) {
+            this.group = group;
+            this.channel = channel;
+        }
+
+    }
+
+    private static class Removal {
+
+        private final MessageReaction reaction;
+        private final User user;
+
+        private Removal(MessageReaction reaction, User user) {
+            this.reaction = reaction;
+            this.user = user;
+        }
+
+    }
+
+}
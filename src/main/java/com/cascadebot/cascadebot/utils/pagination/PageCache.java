@@ -5,22 +5,143 @@
 
 package com.cascadebot.cascadebot.utils.pagination;
 
-import java.util.HashMap;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import net.dv8tion.jda.core.entities.Message;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the pages of every paged message, keyed by message ID. Pages expire after the same idle time as the
+ * buttons used to change page, the cache holds roughly at most {@code maxBytes} of pages in total and each guild
+ * keeps at most {@code maxGuildEntries} paged messages. This is safe to use from any thread.
+ * <p>
+ * Pages are mostly rendered when shown, so their size isn't known when they are cached. Each page is weighed as the
+ * most a page can hold instead, {@value #MAX_PAGE_BYTES} bytes.
+ */
+public class PageCache {
+
+    private static final int RENDERED_PAGES = 3; // How many recently shown pages to keep for each message
+    private static final int MAX_PAGE_BYTES = Message.MAX_CONTENT_LENGTH * 2; // Java strings are UTF-16
+
+    private final int maxGuildEntries;
+    private final Cache<Long, Pages> pages;
+    // Message IDs per guild oldest first, only changed inside compute calls. Guilds without pages are removed.
+    private final Map<Long, Set<Long>> guildMessages = new ConcurrentHashMap<>();
 
-public class PageCache extends HashMap<Long, PageCache.Pages> {
+    public PageCache(long maxBytes, int maxGuildEntries) {
+        this.maxGuildEntries = maxGuildEntries;
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long messageId, Pages cached) ->
+                        (int) Math.min(Integer.MAX_VALUE, (long) Math.max(1, cached.getPages()) * MAX_PAGE_BYTES))
+                .expireAfterAccess(30, TimeUnit.MINUTES) // Matches the buttons cache so pages live as long as their buttons
+                .removalListener((Long messageId, Pages cached, RemovalCause cause) -> {
+                    if (messageId != null && cached != null && cause != RemovalCause.REPLACED) {
+                        removeFromGuild(cached.guildId, messageId);
+                    }
+                })
+                .build();
+    }
+
+    public Pages put(long guildId, long messageId, List<Page> pages) {
+        return put(guildId, messageId, PageSource.of(pages));
+    }
+
+    /**
+     * Caches the pages of a message, evicting the guild's oldest paged message if the guild is over its limit.
+     *
+     * @param guildId   The ID of the guild the message was sent in.
+     * @param messageId The ID of the message.
+     * @param source    The source of the pages.
+     * @return The cached pages.
+     */
+    public Pages put(long guildId, long messageId, PageSource source) {
+        Pages cached = new Pages(guildId, source);
+        pages.put(messageId, cached);
+        guildMessages.compute(guildId, (id, messages) -> {
+            if (messages == null) {
+                messages = new LinkedHashSet<>();
+            }
+            messages.add(messageId);
+            Iterator<Long> iterator = messages.iterator();
+            while (messages.size() > maxGuildEntries) {
+                pages.invalidate(iterator.next());
+                iterator.remove();
+            }
+            return messages;
+        });
+        return cached;
+    }
 
-    public void put(List<Page> pages, long messageId) {
-        this.put(messageId, new Pages(pages));
+    private void removeFromGuild(long guildId, long messageId) {
+        guildMessages.computeIfPresent(guildId, (id, messages) -> {
+            // The message may have been given new pages since these were removed
+            if (!pages.asMap().containsKey(messageId)) {
+                messages.remove(messageId);
+            }
+            return messages.isEmpty() ? null : messages;
+        });
     }
 
-    public class Pages {
+    /**
+     * Gets the pages of a message.
+     *
+     * @param messageId The ID of the message.
+     * @return The pages or {@code null} if the message has no cached pages.
+     */
+    public Pages get(long messageId) {
+        return pages.getIfPresent(messageId);
+    }
+
+    /**
+     * Removes the pages of a message, this is used when the message is deleted.
+     *
+     * @param messageId The ID of the message.
+     */
+    public void remove(long messageId) {
+        pages.invalidate(messageId);
+    }
+
+    /**
+     * Removes every cached page of a guild, this is used when we leave the guild.
+     *
+     * @param guildId The ID of the guild.
+     */
+    public void removeGuild(long guildId) {
+        Set<Long> messages = guildMessages.remove(guildId);
+        if (messages == null) return;
+        pages.invalidateAll(messages);
+    }
+
+    public long getCachedCount() {
+        return pages.estimatedSize();
+    }
+
+    public static class Pages {
+
+        private final long guildId;
+        private final PageSource pages;
 
-        List<Page> pages;
+        private volatile int currentPage;
 
-        int currentPage;
+        private final Map<Integer, Page> renderedPages = new LinkedHashMap<>(RENDERED_PAGES + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > RENDERED_PAGES;
+            }
+        };
 
-        Pages(List<Page> pages) {
+        Pages(long guildId, PageSource pages) {
+            this.guildId = guildId;
             this.pages = pages;
             currentPage = 1;
         }
@@ -33,12 +154,20 @@ public class PageCache extends HashMap<Long, PageCache.Pages> {
             this.currentPage = currentPage;
         }
 
+        /**
+         * Gets a page, rendering it from the page source if it isn't one of the recently shown pages.
+         *
+         * @param page The page number, starting from 1.
+         * @return The page.
+         */
         public Page getPage(int page) {
-            return pages.get(page - 1);
+            synchronized (renderedPages) {
+                return renderedPages.computeIfAbsent(page, pages::render);
+            }
         }
 
         public int getPages() {
-            return pages.size();
+            return pages.getPageCount();
         }
 
     }
@@ -5,15 +5,24 @@
 
 package com.cascadebot.cascadebot.utils.pagination;
 
+import com.cascadebot.cascadebot.CascadeBot;
 import com.cascadebot.cascadebot.data.mapping.GuildDataMapper;
+import com.cascadebot.cascadebot.events.CommandListener;
 import com.cascadebot.cascadebot.utils.FormatUtils;
 import com.cascadebot.cascadebot.utils.Table;
+import com.cascadebot.cascadebot.utils.rest.RestPriority;
+import com.cascadebot.cascadebot.utils.rest.RestRoute;
 import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.MessageBuilder;
 import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.requests.restaction.MessageAction;
 
 public class PageObjects {
 
+    private static void edit(Message message, MessageAction action) {
+        CascadeBot.INS.getRestScheduler().queue(RestPriority.REPLY, RestRoute.EDIT_MESSAGE, message.getChannel().getIdLong(), action);
+    }
+
     public static class EmbedPage implements Page {
 
         EmbedBuilder embed;
@@ -31,19 +40,24 @@ public class PageObjects {
 
         @Override
         public void pageShow(Message message, int page, int total) {
-            if (GuildDataMapper.getGuildData(message.getTextChannel().getGuild().getIdLong()).getSettings().useEmbedForMessages()) {
-                if (numbersInEmbed) {
-                    embed.setFooter("Page " + page + "/" + total, message.getAuthor().getAvatarUrl());
-                    message.editMessage(embed.build()).override(true).queue();
+            GuildDataMapper.getGuildDataAsync(message.getTextChannel().getGuild().getIdLong()).thenAcceptAsync(guildData -> {
+                if (guildData.getSettings().useEmbedForMessages()) {
+                    if (numbersInEmbed) {
+                        embed.setFooter("Page " + page + "/" + total, message.getAuthor().getAvatarUrl());
+                        edit(message, message.editMessage(embed.build()).override(true));
+                    } else {
+                        edit(message, message.editMessage(new MessageBuilder().setEmbed(embed.build()).append("Page ").append(String.valueOf(page)).append("/").append(String.valueOf(total)).build()).override(true));
+
+                    }
                 } else {
-                    message.editMessage(new MessageBuilder().setEmbed(embed.build()).append("Page ").append(String.valueOf(page)).append("/").append(String.valueOf(total)).build()).override(true).queue();
-
+                    embed.setFooter("Page " + page + "/" + total, message.getAuthor().getAvatarUrl());
+                    String content = FormatUtils.formatEmbed(embed.build());
+                    edit(message, message.editMessage(content).override(true));
                 }
-            } else {
-                embed.setFooter("Page " + page + "/" + total, message.getAuthor().getAvatarUrl());
-                String content = FormatUtils.formatEmbed(embed.build());
-                message.editMessage(content).override(true).queue();
-            }
+            }, CommandListener.getCommandExecutor().getExecutor()).exceptionally(throwable -> {
+                CascadeBot.LOGGER.error("Failed to show page " + page + " of message ID: " + message.getId(), throwable);
+                return null;
+            });
         }
 
     }
@@ -58,7 +72,7 @@ public class PageObjects {
 
         @Override
         public void pageShow(Message message, int page, int total) {
-            message.editMessage(content + "\n\nPage " + page + "/" + total).override(true).queue();
+            edit(message, message.editMessage(content + "\n\nPage " + page + "/" + total).override(true));
         }
 
     }
@@ -77,16 +91,19 @@ public class PageObjects {
             this.numbersInTable = numbersInTable;
         }
 
+        Table getTable() {
+            return table;
+        }
+
         @Override
         public void pageShow(Message message, int page, int total) {
             if (numbersInTable) {
-                Table.TableBuilder builder = this.table.edit();
-                builder.setFooter("Page " + page + "/" + total);
-                message.editMessage(builder.build().toString()).override(true).queue();
+                String table = FormatUtils.makeAsciiTable(this.table.getHeadings(), this.table.getBody(), "Page " + page + "/" + total);
+                edit(message, message.editMessage(table).override(true));
             } else {
                 String table = this.table.toString();
                 table += "\n\nPage " + page + "/" + total;
-                message.editMessage(table).override(true).queue();
+                edit(message, message.editMessage(table).override(true));
             }
         }
 
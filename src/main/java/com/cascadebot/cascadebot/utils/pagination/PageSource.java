@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.utils.pagination;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * A source of pages for a paged message that only creates a page when it is shown, so large outputs don't need
+ * every page to be built up front. Pages are numbered from 1.
+ */
+public interface PageSource {
+
+    /**
+     * Gets the total amount of pages.
+     *
+     * @return The amount of pages.
+     */
+    int getPageCount();
+
+    /**
+     * Creates the page with the given number.
+     *
+     * @param page The page number, from 1 to {@link #getPageCount()}.
+     * @return The page.
+     */
+    Page render(int page);
+
+    /**
+     * Creates a page source over pages that have already been built.
+     *
+     * @param pages The pages.
+     * @return A page source returning the pages from the list.
+     */
+    static PageSource of(List<Page> pages) {
+        return of(pages.size(), page -> pages.get(page - 1));
+    }
+
+    /**
+     * Creates a page source that creates each page with the given function.
+     *
+     * @param pageCount The amount of pages.
+     * @param renderer  The function creating each page from its page number.
+     * @return The page source.
+     */
+    static PageSource of(int pageCount, IntFunction<Page> renderer) {
+        return new PageSource() {
+            @Override
+            public int getPageCount() {
+                return pageCount;
+            }
+
+            @Override
+            public Page render(int page) {
+                return renderer.apply(page);
+            }
+        };
+    }
+
+}
@@ -10,6 +10,7 @@ import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.utils.Checks;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class PageUtils {
@@ -21,16 +22,11 @@ public class PageUtils {
      * @param string The string to split
      * @param length The length you want the final pages. Always splits to a length that is <= the length you provide. Cannot be > 1800 as that's the discord limit (including page numbers)
      * @param c The character you want to split it at (this should be something like a space or a new line character)
-     * @return A list of String pages
+     * @return A page source creating String pages when they are shown
      */
-    public static List<Page> splitStringToStringPages(String string, int length, char c) {
-        List<String> strings = splitString(string, length, c);
-        List<Page> pages = new ArrayList<>();
-        for(String pageString : strings) {
-            pages.add(new PageObjects.StringPage(pageString));
-        }
-
-        return pages;
+    public static PageSource splitStringToStringPages(String string, int length, char c) {
+        int[] ranges = splitStringRanges(string, length, c);
+        return PageSource.of(ranges.length / 2, page -> new PageObjects.StringPage(getRange(string, ranges, page - 1)));
     }
 
     /**
@@ -40,17 +36,11 @@ public class PageUtils {
      * @param string The string to split
      * @param length The length you want the final pages. Always splits to a length that is <= the length you provide. Cannot be > 1800 as that's the discord limit (including page numbers)
      * @param c The character you want to split it at (this should be something like a space or a new line character)
-     * @return A list of Embed pages
+     * @return A page source creating Embed pages when they are shown
      */
-    public static List<Page> splitStringToEmbedPages(String string, int length, char c) {
-        List<String> strings = splitString(string, length, c);
-        List<Page> pages = new ArrayList<>();
-        for(String pageString : strings) {
-            pages.add(new PageObjects.EmbedPage(new EmbedBuilder().setDescription(pageString)));
-        }
-
-        return pages;
-
+    public static PageSource splitStringToEmbedPages(String string, int length, char c) {
+        int[] ranges = splitStringRanges(string, length, c);
+        return PageSource.of(ranges.length / 2, page -> new PageObjects.EmbedPage(new EmbedBuilder().setDescription(getRange(string, ranges, page - 1))));
     }
 
     /**
@@ -62,85 +52,150 @@ public class PageUtils {
      * @return A list of the split strings (you need to put into pages yourself)
      */
     public static List<String> splitString(String string, int length, char c) {
-        Checks.notNegative(length, "length");
+        int[] ranges = splitStringRanges(string, length, c);
+        List<String> strings = new ArrayList<>(ranges.length / 2);
+        for (int i = 0; i < ranges.length / 2; i++) {
+            strings.add(getRange(string, ranges, i));
+        }
+        return strings;
+    }
+
+    /**
+     * Works out where to split a string into pages without copying any of it. Each page ends at the last split
+     * character that fits in the length, which is dropped from the page, or is cut at the length if the page has no
+     * split character. The whole string is only scanned about twice, however many pages there are.
+     * <p>
+     * The length is capped at 1800 so a page plus its page number always fits in a discord message.
+     *
+     * @param string The string to split
+     * @param length The max length of each page
+     * @param c The character you want to split it at
+     * @return The start (inclusive) and end (exclusive) index pairs of each page
+     */
+    public static int[] splitStringRanges(CharSequence string, int length, char c) {
+        Checks.positive(length, "length");
         Checks.check(length <= 1800, "length");
         Checks.notEmpty(string, "string");
 
-        int amount = (int) ((double)string.length() / (double) length);
-
-        List<String> strings = new ArrayList<>();
-        String toAdd = "";
-
-        for(int i = 0; i <= amount; i++) {
-            int start = length * i;
-            int end = Math.min(start + (length - 1), string.length());
-
-            String temp = toAdd + string.substring(start, end == string.length() ? end : end - toAdd.length());
-            int last;
-            if(end != string.length()) {
-                last = temp.lastIndexOf(c);
-
-                toAdd = temp.substring(last + 1);
+        int stringLength = string.length();
+        int[] ranges = new int[(stringLength / length + 1) * 2];
+        int count = 0;
+        int start = 0;
+        while (true) {
+            if (count == ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            if (stringLength - start <= length) {
+                ranges[count++] = start;
+                ranges[count++] = stringLength;
+                return Arrays.copyOf(ranges, count);
+            }
+            int split = lastIndexOf(string, c, start + length, start);
+            ranges[count++] = start;
+            if (split > start) {
+                ranges[count++] = split;
+                start = split + 1;
             } else {
-                last = temp.length();
+                ranges[count++] = start + length;
+                start += length;
             }
+        }
+    }
 
-            strings.add(temp.substring(0, last));
+    private static int lastIndexOf(CharSequence string, char c, int from, int to) {
+        for (int i = from; i >= to; i--) {
+            if (string.charAt(i) == c) {
+                return i;
+            }
         }
+        return -1;
+    }
 
-        return strings;
+    private static String getRange(String string, int[] ranges, int index) {
+        return string.substring(ranges[index * 2], ranges[index * 2 + 1]);
     }
 
     /**
-     * Splits table data out into a give number of rows.
+     * Splits table data out into pages of the given number of rows.
      * I don't suggest using this as you can possibly exceed the discord message limit
      *
      * @param table The table to use
-     * @param rows The amount of rows to split to
+     * @param rows The amount of rows on each page
      * @return A list of pages
      */
     public static List<Page> splitTableDataToPages(Table table, int rows) {
-        int i = 0;
-        List<Page> pages = new ArrayList<>();
-        List<List<String>> pageContent = new ArrayList<>();
-        for(List<String> row : table.getBody()) {
-            i++;
-            pageContent.add(row);
-
-            if(i == rows) {
-                pages.add(new PageObjects.TablePage(table));
-                pageContent = new ArrayList<>();
-                i = 0;
-            }
+        Checks.positive(rows, "rows");
+        int size = table.getBody().size();
+        List<Page> pages = new ArrayList<>(size / rows + 1);
+        for (int start = 0; start < size; start += rows) {
+            pages.add(new PageObjects.TablePage(table.getRows(start, Math.min(start + rows, size))));
+        }
+        if (pages.isEmpty()) {
+            pages.add(new PageObjects.TablePage(table));
         }
-        pages.add(new PageObjects.TablePage(table));
         return pages;
     }
 
     /**
-     * Splits table data out into a pages with content length less then the length provides
+     * Splits table data out into pages of the given number of rows, only creating the table for a page when it is shown.
+     *
+     * @param table The table to use
+     * @param rows The amount of rows on each page
+     * @return A page source creating Table pages when they are shown
+     */
+    public static PageSource tableDataPageSource(Table table, int rows) {
+        Checks.positive(rows, "rows");
+        int size = table.getBody().size();
+        int pageCount = Math.max(1, (size + rows - 1) / rows);
+        return PageSource.of(pageCount, page -> {
+            int start = (page - 1) * rows;
+            return new PageObjects.TablePage(table.getRows(start, Math.min(start + rows, size)));
+        });
+    }
+
+    /**
+     * Splits table data out into a pages with content length less then the length provides.
+     * The length includes the table borders, headings, footer and the page number shown under the table.
      *
      * @param table The table to split.
      * @param length The max content length you're trying to achieve.
      * @return A list of pages
      */
     public static List<Page> splitTableDataToPagesWithCharLength(Table table, int length) {
-        int maxLength = 0;
-        for(List<String> row : table.getBody()) {
-            StringBuilder stringBuilder = new StringBuilder("| ");
-            for(String content : row) {
-                stringBuilder.append(content).append(" | ");
-            }
-            stringBuilder.append(" |");
-            String rowContent = stringBuilder.toString();
-            if(rowContent.length() > maxLength) {
-                maxLength = rowContent.length();
+        List<String> headings = table.getHeadings();
+        int[] widths = new int[headings.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = headings.get(i).length();
+        }
+        for (List<String> row : table.getBody()) {
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = Math.max(widths[i], row.get(i).length());
             }
         }
 
-        int rows = (int) ((double) length / (double) maxLength);
+        // Every line of a page is at most as wide as the line of the full table, as a page's columns can only be narrower
+        int lineLength = 2; // The leading "|" and the new line
+        for (int width : widths) {
+            lineLength += width + 3;
+        }
+        int overhead = "```md\n".length() + lineLength * 4 + "```".length() + getPageNumberLength(table.getBody().size());
+        if (table.getFooter() != null) {
+            overhead += lineLength + Math.max(lineLength, table.getFooter().length() + 3);
+        }
+
+        int rows = Math.max(1, (length - overhead) / lineLength);
 
         return splitTableDataToPages(table, rows);
     }
 
+    /**
+     * Gets the max length of the page number added to the bottom of a page, such as {@code "\n\nPage 1/10"}.
+     *
+     * @param total The total amount of pages.
+     * @return The max length of a page number for the total.
+     */
+    public static int getPageNumberLength(int total) {
+        return "\n\nPage /".length() + String.valueOf(Math.max(1, total)).length() * 2;
+    }
+
 }
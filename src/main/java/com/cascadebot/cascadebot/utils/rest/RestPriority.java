@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.utils.rest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lanes of the {@link RestScheduler}, highest priority first. Work in a lane is only sent when no higher lane
+ * has work that could be sent to the same channel or guild. Lanes with a max age drop work that has waited longer
+ * than that.
+ */
+public enum RestPriority {
+
+    MODERATION(0), // Bans, kicks and the like, these should never wait behind anything else
+    REPLY(0), // Replies to commands
+    REACTION(0), // Adding buttons to messages, a message missing some of its buttons can't be used
+    CLEANUP(TimeUnit.MINUTES.toNanos(1)); // Removing reactions and deleting command messages
+
+    private final long maxAge;
+
+    RestPriority(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Gets how long work can wait in this lane before it is dropped.
+     *
+     * @return The max age in nanoseconds, or 0 if work in this lane is never dropped for being stale.
+     */
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.utils.rest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The groups of Discord endpoints we rate limit, each with a bucket per channel or guild that roughly mirrors
+ * Discord's own limits. JDA still handles the actual rate limits, these just stop us handing JDA more work than
+ * Discord will accept so the {@link RestScheduler} decides what goes first.
+ */
+public enum RestRoute {
+
+    SEND_MESSAGE(5, TimeUnit.SECONDS.toNanos(5)), // Per channel
+    EDIT_MESSAGE(5, TimeUnit.SECONDS.toNanos(5)), // Per channel
+    DELETE_MESSAGE(5, TimeUnit.SECONDS.toNanos(1)), // Per channel
+    REACTION(1, TimeUnit.MILLISECONDS.toNanos(250)), // Per channel
+    MODERATION(5, TimeUnit.SECONDS.toNanos(1)); // Per guild
+
+    private final int limit;
+    private final long period;
+
+    RestRoute(int limit, long period) {
+        this.limit = limit;
+        this.period = period;
+    }
+
+    /**
+     * Gets how many requests can be sent on this route in each period.
+     *
+     * @return The request limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the period the request limit is for.
+     *
+     * @return The period in nanoseconds.
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+}
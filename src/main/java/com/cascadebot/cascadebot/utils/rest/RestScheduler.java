@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.utils.rest;
+
+import com.cascadebot.cascadebot.tasks.Task;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.core.requests.RestAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Decides the order our REST requests are handed to JDA in. Each request is put in a {@link RestPriority} lane and
+ * needs a token from its {@link RestRoute} bucket and from a bucket shared by every route of the same channel or guild
+ * (the major ID). Lanes compete for the shared bucket, so when a channel is busy the highest priority work is sent
+ * first whatever route it is on, and moderation actions never wait behind cosmetic requests like reaction cleanup.
+ * Lower lanes only use the shared bucket while the higher lanes are waiting on their own route.
+ * <p>
+ * Waiting requests are kept with their major ID, and the major IDs with work are ordered by when they can next send.
+ * A submit only dispatches its own major ID and the dispatch timer only looks at the major IDs that are due, so
+ * neither walks every waiting request.
+ * <p>
+ * Lanes with a max age drop work that has waited too long, and once {@code maxQueued} requests are waiting new work
+ * pushes out the oldest work of a lower priority, or is dropped itself if there is none. Moderation work is never
+ * dropped, it is queued even if that goes over {@code maxQueued}.
+ * Dropped work completes its future with a {@link CancellationException}.
+ */
+public class RestScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestScheduler.class);
+
+    private static final long MIN_DISPATCH_DELAY = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int SHARED_LIMIT = 5; // Requests per channel or guild across every route
+    private static final long SHARED_PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxQueued;
+    private final LongSupplier clock;
+    private final DispatchScheduler dispatchScheduler;
+
+    private final Map<Long, MajorQueue> waiting = new HashMap<>(); // Major IDs with queued work
+    private final NavigableSet<MajorQueue> due = new TreeSet<>(Comparator.<MajorQueue>comparingLong(queue -> queue.readyAt)
+            .thenComparingLong(queue -> queue.majorId)); // Every waiting major ID, by when it can next send
+    private final Map<RestPriority, Set<RestTask<?>>> lanes = new EnumMap<>(RestPriority.class); // Oldest first
+    private final Map<RestPriority, LaneStats> laneStats = new EnumMap<>(RestPriority.class);
+    private final Cache<Long, MajorQueue> queues = Caffeine.newBuilder()
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build();
+
+    private int queued;
+    private Future<?> nextDispatch;
+    private long nextDispatchTime;
+
+    /**
+     * @param maxQueued The max amount of requests that can be waiting across all lanes, moderation requests can go
+     *                  over this.
+     */
+    public RestScheduler(int maxQueued) {
+        this(maxQueued, System::nanoTime, (dispatch, delay) -> Task.getScheduler().schedule(dispatch, delay, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * @param maxQueued         The max amount of requests that can be waiting across all lanes.
+     * @param clock             Gives the current time in nanoseconds.
+     * @param dispatchScheduler Runs a dispatch after a delay.
+     */
+    RestScheduler(int maxQueued, LongSupplier clock, DispatchScheduler dispatchScheduler) {
+        this.maxQueued = maxQueued;
+        this.clock = clock;
+        this.dispatchScheduler = dispatchScheduler;
+        for (RestPriority priority : RestPriority.values()) {
+            lanes.put(priority, new LinkedHashSet<>());
+            laneStats.put(priority, new LaneStats());
+        }
+    }
+
+    /**
+     * Schedules a request to be sent.
+     *
+     * @param priority The lane to put the request in.
+     * @param route    The route the request is rate limited on.
+     * @param majorId  The ID of the channel or guild the route's bucket is for.
+     * @param action   The request to send.
+     * @param <T>      The type of the request's result.
+     * @return A future that completes with the result of the request, or with a {@link CancellationException} if the
+     * request was dropped.
+     */
+    public <T> CompletableFuture<T> submit(RestPriority priority, RestRoute route, long majorId, RestAction<T> action) {
+        return submit(priority, route, majorId, action::submit);
+    }
+
+    <T> CompletableFuture<T> submit(RestPriority priority, RestRoute route, long majorId, Supplier<CompletableFuture<T>> send) {
+        RestTask<T> task;
+        RestTask<?> dropped = null;
+        List<RestTask<?>> ready = new ArrayList<>();
+        List<RestTask<?>> stale = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            MajorQueue queue = waiting.get(majorId);
+            if (queue == null) {
+                // A major ID with queued work is always in waiting, so its buckets can't expire while they're in use
+                queue = queues.get(majorId, id -> new MajorQueue(id, now));
+            }
+            queue.routes.computeIfAbsent(route, r -> new TokenBucket(r.getLimit(), r.getPeriod(), now));
+            task = new RestTask<>(priority, route, queue, send, now);
+            laneStats.get(priority).submitted.increment();
+            if (queued >= maxQueued) {
+                dropped = pollLowerPriority(priority);
+                if (dropped == null && priority != RestPriority.MODERATION) {
+                    dropped = task;
+                }
+            }
+            if (dropped != task) {
+                queue.lanes.get(priority).addLast(task);
+                lanes.get(priority).add(task);
+                queue.size++;
+                queued++;
+                waiting.put(majorId, queue);
+                dispatch(queue, now, ready, stale);
+                scheduleDispatch(now);
+            }
+        }
+        if (dropped != null) {
+            drop(dropped);
+        }
+        run(ready, stale);
+        return task.future;
+    }
+
+    /**
+     * Schedules a request to be sent, logging it if it fails. Dropped requests aren't logged.
+     *
+     * @param priority The lane to put the request in.
+     * @param route    The route the request is rate limited on.
+     * @param majorId  The ID of the channel or guild the route's bucket is for.
+     * @param action   The request to send.
+     */
+    public void queue(RestPriority priority, RestRoute route, long majorId, RestAction<?> action) {
+        submit(priority, route, majorId, action).whenComplete((result, throwable) -> {
+            if (throwable != null && !(throwable instanceof CancellationException)) {
+                LOGGER.warn("{} request on route {} failed", priority, route, throwable);
+            }
+        });
+    }
+
+    /**
+     * Removes the oldest request in the lowest lane below the given priority that has any work. Each lane is kept in
+     * the order work was submitted, and the oldest request of a lane is always at the head of its major ID's lane.
+     */
+    private RestTask<?> pollLowerPriority(RestPriority priority) {
+        RestPriority[] priorities = RestPriority.values();
+        for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+            Set<RestTask<?>> lane = lanes.get(priorities[i]);
+            if (!lane.isEmpty()) {
+                return poll(lane.iterator().next().queue, priorities[i]);
+            }
+        }
+        return null;
+    }
+
+    private RestTask<?> poll(MajorQueue queue, RestPriority priority) {
+        RestTask<?> task = queue.lanes.get(priority).pollFirst();
+        lanes.get(priority).remove(task);
+        queue.size--;
+        queued--;
+        if (queue.size == 0) {
+            due.remove(queue);
+            waiting.remove(queue.majorId);
+        }
+        if (queued == 0) {
+            notifyAll(); // Wake up awaitEmpty
+        }
+        return task;
+    }
+
+    /**
+     * Takes every request a major ID can send now, then puts it back in the due set for when it can next send.
+     */
+    private void dispatch(MajorQueue queue, long now, List<RestTask<?>> ready, List<RestTask<?>> stale) {
+        due.remove(queue); // Must be removed before readyAt changes
+        long wait = Long.MAX_VALUE;
+        lanes:
+        for (RestPriority priority : RestPriority.values()) {
+            Deque<RestTask<?>> lane = queue.lanes.get(priority);
+            while (!lane.isEmpty()) {
+                RestTask<?> task = lane.peekFirst();
+                if (priority.getMaxAge() > 0 && now - task.submitted > priority.getMaxAge()) {
+                    stale.add(poll(queue, priority));
+                    continue;
+                }
+                long sharedWait = queue.shared.getWait(now);
+                if (sharedWait > 0) {
+                    // Lower lanes wait behind this one for the shared bucket
+                    wait = Math.min(wait, sharedWait);
+                    break lanes;
+                }
+                TokenBucket route = queue.routes.get(task.route);
+                long routeWait = route.getWait(now);
+                if (routeWait > 0) {
+                    // Lower lanes can only overtake this lane on other routes, as their work on this route waits too
+                    wait = Math.min(wait, routeWait);
+                    break;
+                }
+                queue.shared.tryAcquire(now);
+                route.tryAcquire(now);
+                ready.add(poll(queue, priority));
+            }
+        }
+        if (queue.size > 0) {
+            queue.readyAt = now + Math.max(wait == Long.MAX_VALUE ? 0 : wait, MIN_DISPATCH_DELAY);
+            due.add(queue);
+        }
+    }
+
+    private void dispatchDue() {
+        List<RestTask<?>> ready = new ArrayList<>();
+        List<RestTask<?>> stale = new ArrayList<>();
+        synchronized (this) {
+            nextDispatch = null;
+            long now = clock.getAsLong();
+            // Dispatching puts a major ID back at least MIN_DISPATCH_DELAY later, so this always ends
+            while (!due.isEmpty() && due.first().readyAt <= now) {
+                dispatch(due.pollFirst(), now, ready, stale);
+            }
+            scheduleDispatch(now);
+        }
+        run(ready, stale);
+    }
+
+    private void scheduleDispatch(long now) {
+        if (due.isEmpty()) return;
+        long readyAt = due.first().readyAt;
+        if (nextDispatch != null && nextDispatchTime <= readyAt) return;
+        if (nextDispatch != null) {
+            nextDispatch.cancel(false);
+        }
+        nextDispatchTime = readyAt;
+        nextDispatch = dispatchScheduler.schedule(this::dispatchDue, Math.max(0, readyAt - now));
+    }
+
+    private void run(List<RestTask<?>> ready, List<RestTask<?>> stale) {
+        stale.forEach(this::drop);
+        for (RestTask<?> task : ready) {
+            laneStats.get(task.priority).sent.increment();
+            task.run();
+        }
+    }
+
+    private void drop(RestTask<?> task) {
+        laneStats.get(task.priority).dropped.increment();
+        task.future.cancel(false);
+    }
+
+    /**
+     * Waits for every queued request to be sent or dropped, this is used when shutting down.
+     *
+     * @param timeout The max amount of time to wait.
+     * @param unit    The unit of the timeout.
+     * @return {@code true} if nothing is queued, {@code false} if the timeout was reached first.
+     */
+    public synchronized boolean awaitEmpty(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (queued > 0) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return false;
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the amount of requests waiting in a lane.
+     *
+     * @param priority The lane.
+     * @return The amount of waiting requests.
+     */
+    public synchronized int getQueued(RestPriority priority) {
+        return lanes.get(priority).size();
+    }
+
+    /**
+     * Gets the statistics for each lane.
+     *
+     * @return An unmodifiable view of the lane statistics.
+     */
+    public Map<RestPriority, LaneStats> getLaneStats() {
+        return Collections.unmodifiableMap(laneStats);
+    }
+
+    interface DispatchScheduler {
+
+        /**
+         * Runs a dispatch after a delay.
+         *
+         * @param dispatch The dispatch to run.
+         * @param delay    The delay in nanoseconds.
+         * @return A future that can cancel the dispatch.
+         */
+        Future<?> schedule(Runnable dispatch, long delay);
+
+    }
+
+    private static class MajorQueue {
+
+        private final long majorId;
+        private final TokenBucket shared;
+        private final Map<RestRoute, TokenBucket> routes = new EnumMap<>(RestRoute.class);
+        private final Map<RestPriority, Deque<RestTask<?>>> lanes = new EnumMap<>(RestPriority.class);
+        private int size;
+        private long readyAt; // When this can next send, only changed while it isn't in the due set
+
+        private MajorQueue(long majorId, long now) {
+            this.majorId = majorId;
+            this.shared = new TokenBucket(SHARED_LIMIT, SHARED_PERIOD, now);
+            for (RestPriority priority : RestPriority.values()) {
+                lanes.put(priority, new ArrayDeque<>());
+            }
+        }
+
+    }
+
+    private static class RestTask<T> {
+
+        private final RestPriority priority;
+        private final RestRoute route;
+        private final MajorQueue queue;
+        private final Supplier<CompletableFuture<T>> send;
+        private final long submitted;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private RestTask(RestPriority priority, RestRoute route, MajorQueue queue, Supplier<CompletableFuture<T>> send, long submitted) {
+            this.priority = priority;
+            this.route = route;
+            this.queue = queue;
+            this.send = send;
+            this.submitted = submitted;
+        }
+
+        private void run() {
+            try {
+                send.get().whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        future.completeExceptionally(throwable);
+                    } else {
+                        future.complete(result);
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+    }
+
+    public static class LaneStats {
+
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        public long getSubmitted() {
+            return submitted.sum();
+        }
+
+        public long getSent() {
+            return sent.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package com.cascadebot.cascadebot.utils.rest;
+
+/**
+ * A token bucket holding up to {@code limit} tokens which refills at {@code limit} tokens per {@code period}.
+ * Times are passed in from {@link System#nanoTime()} so the bucket can be tested without waiting.
+ * This isn't thread-safe, the {@link RestScheduler} only uses buckets while holding its lock.
+ */
+class TokenBucket {
+
+    private final int limit;
+    private final long period;
+
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(int limit, long period, long now) {
+        this.limit = limit;
+        this.period = period;
+        this.tokens = limit;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @param now The current time in nanoseconds.
+     * @return {@code true} if a token was taken.
+     */
+    boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Gets how long until a token will be available.
+     *
+     * @param now The current time in nanoseconds.
+     * @return The time in nanoseconds, 0 if a token is available now.
+     */
+    long getWait(long now) {
+        refill(now);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * period / limit);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed <= 0) return;
+        tokens = Math.min(limit, tokens + (double) elapsed * limit / period);
+        lastRefill = now;
+    }
+
+}
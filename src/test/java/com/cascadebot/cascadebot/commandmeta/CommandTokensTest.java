@@ -0,0 +1,39 @@
+package com.cascadebot.cascadebot.commandmeta;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CommandTokensTest {
+
+    @Test
+    public void testTriggerAndArgs() {
+        CommandTokens tokens = CommandTokens.tokenize(";ban  someone   for spam", 1);
+        assertEquals("ban", tokens.getTrigger());
+        assertEquals(3, tokens.getArgCount());
+        assertArrayEquals(new String[]{"someone", "for", "spam"}, tokens.getArgs());
+    }
+
+    @Test
+    public void testNoArgs() {
+        CommandTokens tokens = CommandTokens.tokenize(";help   ", 1);
+        assertEquals("help", tokens.getTrigger());
+        assertArrayEquals(new String[0], tokens.getArgs());
+    }
+
+    @Test
+    public void testLeadingSpacesSkipped() {
+        CommandTokens tokens = CommandTokens.tokenize("<@123>   roles 2", 6);
+        assertEquals("roles", tokens.getTrigger());
+        assertEquals("2", tokens.getArg(0));
+    }
+
+    @Test
+    public void testNoTrigger() {
+        assertNull(CommandTokens.tokenize(";", 1));
+        assertNull(CommandTokens.tokenize(";    ", 1));
+    }
+
+}
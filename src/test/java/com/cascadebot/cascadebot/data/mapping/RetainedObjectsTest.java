@@ -0,0 +1,93 @@
+package com.cascadebot.cascadebot.data.mapping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RetainedObjectsTest {
+
+    // Stands in for a guild that was created on a cache miss and has changes which have never been stored
+    private static class Guild {
+
+        private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    }
+
+    @Test
+    public void testReloadBeforeEvictedSave() {
+        RetainedObjects<Guild> retained = new RetainedObjects<>();
+        Guild guild = retained.retain(1, new Guild());
+
+        // Evicted, then loaded again before the removal listener has saved it
+        assertSame(guild, retained.reload(1));
+
+        // The save finishing must not drop the object as it's cached again
+        guild.dirty.set(false);
+        retained.release(1, guild, guild.dirty.get());
+        assertSame(guild, retained.reload(1));
+        retained.release(1, guild, false);
+        retained.release(1, guild, false);
+        assertNull(retained.reload(1));
+    }
+
+    @Test
+    public void testReleaseAfterSave() {
+        RetainedObjects<Guild> retained = new RetainedObjects<>();
+        Guild guild = retained.retain(1, new Guild());
+        guild.dirty.set(false);
+        retained.release(1, guild, false);
+        assertNull(retained.reload(1));
+        assertEquals(0, retained.size());
+    }
+
+    @Test
+    public void testKeptWhileUnsaved() {
+        RetainedObjects<Guild> retained = new RetainedObjects<>();
+        Guild guild = retained.retain(1, new Guild());
+        retained.release(1, guild, true); // The save failed
+        assertSame(guild, retained.reload(1));
+    }
+
+    @Test
+    public void testReleasedByLaterSave() {
+        RetainedObjects<Guild> retained = new RetainedObjects<>();
+        Guild guild = retained.retain(1, new Guild());
+        retained.release(1, guild, true); // The eviction save failed
+
+        // Saving a cached guild doesn't release it
+        Guild cached = retained.retain(2, new Guild());
+        retained.releaseSaved(2, cached, false);
+        assertSame(cached, retained.reload(2));
+
+        // A later periodic save succeeds
+        retained.releaseSaved(1, guild, false);
+        assertNull(retained.reload(1));
+        assertEquals(1, retained.size());
+    }
+
+    @Test
+    public void testReloadAfterFailedSave() {
+        RetainedObjects<Guild> retained = new RetainedObjects<>();
+        Guild guild = retained.retain(1, new Guild());
+        retained.release(1, guild, true); // The eviction save failed
+        assertSame(guild, retained.reload(1));
+
+        // It's cached again so a successful save mustn't release it, only its next eviction
+        retained.releaseSaved(1, guild, false);
+        assertSame(guild, retained.reload(1));
+    }
+
+    @Test
+    public void testRetainKeepsExisting() {
+        RetainedObjects<Guild> retained = new RetainedObjects<>();
+        Guild evicted = retained.retain(1, new Guild());
+        // A load that read the database before the evicted guild was saved gets the evicted object instead
+        assertSame(evicted, retained.retain(1, new Guild()));
+        assertEquals(1, retained.values().size());
+    }
+
+}
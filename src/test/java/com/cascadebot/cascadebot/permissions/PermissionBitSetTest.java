@@ -0,0 +1,61 @@
+package com.cascadebot.cascadebot.permissions;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PermissionBitSetTest {
+
+    @Test
+    public void testWithAndWithout() {
+        PermissionBitSet set = PermissionBitSet.of(1, 64, 130);
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(64));
+        assertTrue(set.contains(130));
+        assertFalse(set.contains(2));
+        assertEquals(3, set.cardinality());
+        assertEquals(PermissionBitSet.of(1, 64), set.without(130));
+        assertTrue(PermissionBitSet.EMPTY.with(5).without(5).isEmpty());
+    }
+
+    @Test
+    public void testSetOperations() {
+        PermissionBitSet a = PermissionBitSet.of(1, 2, 70);
+        PermissionBitSet b = PermissionBitSet.of(2, 3, 200);
+        assertEquals(PermissionBitSet.of(1, 2, 3, 70, 200), a.union(b));
+        assertEquals(PermissionBitSet.of(2), a.intersect(b));
+        assertEquals(PermissionBitSet.of(1, 70), a.andNot(b));
+        assertEquals(PermissionBitSet.EMPTY, a.intersect(PermissionBitSet.of(200)));
+    }
+
+    @Test
+    public void testRange() {
+        PermissionBitSet range = PermissionBitSet.range(66);
+        assertEquals(66, range.cardinality());
+        assertTrue(range.contains(65));
+        assertFalse(range.contains(66));
+    }
+
+    @Test
+    public void testLongArrayRoundTrip() {
+        PermissionBitSet set = PermissionBitSet.of(3, 100);
+        assertEquals(set, PermissionBitSet.valueOf(set.toLongArray()));
+        assertArrayEquals(new long[]{1L << 3}, set.without(100).toLongArray()); // Trailing empty words are dropped
+        assertSame(PermissionBitSet.EMPTY, PermissionBitSet.valueOf(null));
+    }
+
+    @Test
+    public void testForEach() {
+        List<Integer> ordinals = new ArrayList<>();
+        PermissionBitSet.of(130, 0, 63, 64).forEach(ordinals::add);
+        assertEquals(List.of(0, 63, 64, 130), ordinals);
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.cascadebot.cascadebot.permissions;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PermissionNodeTest {
+
+    @Test
+    public void testExactMatch() {
+        PermissionNode node = PermissionNode.of("cascade.ban");
+        assertTrue(node.test("cascade.ban"));
+        assertFalse(node.test("cascade.banana"));
+        assertFalse(node.test("cascade.ban.other"));
+        assertFalse(node.test("cascade"));
+    }
+
+    @Test
+    public void testTrailingWildcard() {
+        PermissionNode node = PermissionNode.of("cascade.*");
+        assertTrue(node.test("cascade.ban"));
+        assertTrue(node.test("cascade.module.enable"));
+        assertFalse(node.test("cascade"));
+        assertFalse(node.test("cascadebot.ban"));
+    }
+
+    @Test
+    public void testMiddleWildcard() {
+        PermissionNode node = PermissionNode.of("cascade.*.enable");
+        assertTrue(node.test("cascade.module.enable"));
+        assertTrue(node.test("cascade.module.sub.enable"));
+        assertFalse(node.test("cascade.enable"));
+        assertFalse(node.test("cascade.module.disable"));
+    }
+
+    @Test
+    public void testLeadingWildcard() {
+        PermissionNode node = PermissionNode.of("*.enable");
+        assertTrue(node.test("module.enable"));
+        assertFalse(node.test("moduleenable"));
+    }
+
+    @Test
+    public void testAllWildcard() {
+        assertTrue(PermissionNode.of("*").test("cascade.anything"));
+    }
+
+    @Test
+    public void testNegation() {
+        PermissionNode node = PermissionNode.of("-cascade.ban");
+        assertTrue(node.isNegated());
+        assertTrue(node.test("cascade.ban"));
+        assertFalse(PermissionNode.of("cascade.ban").isNegated());
+    }
+
+    @Test
+    public void testCached() {
+        assertSame(PermissionNode.of("cascade.kick"), PermissionNode.of("cascade.kick"));
+    }
+
+}
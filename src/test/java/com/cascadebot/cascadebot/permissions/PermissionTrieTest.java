@@ -0,0 +1,58 @@
+package com.cascadebot.cascadebot.permissions;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PermissionTrieTest {
+
+    private final CascadePermission ban = CascadePermission.of("Ban", "ban");
+    private final CascadePermission moduleCore = CascadePermission.of("Core", "module.core");
+    private final CascadePermission moduleFun = CascadePermission.of("Fun", "module.fun");
+    private final CascadePermission prefixSet = CascadePermission.of("Set prefix", "prefix.set");
+
+    private PermissionTrie trie;
+
+    @BeforeEach
+    public void setup() {
+        trie = new PermissionTrie();
+        trie.add(ban);
+        trie.add(moduleCore);
+        trie.add(moduleFun);
+        trie.add(prefixSet);
+    }
+
+    @Test
+    public void testTrailingWildcard() {
+        assertEquals(Set.of(moduleCore, moduleFun), trie.find(PermissionNode.of("cascade.module.*")));
+    }
+
+    @Test
+    public void testMiddleWildcard() {
+        assertEquals(Set.of(prefixSet), trie.find(PermissionNode.of("cascade.*.set")));
+    }
+
+    @Test
+    public void testWildcardAll() {
+        assertEquals(Set.of(ban, moduleCore, moduleFun, prefixSet), trie.find(PermissionNode.of("cascade.*")));
+    }
+
+    @Test
+    public void testNegatedNode() {
+        assertEquals(Set.of(moduleCore, moduleFun), trie.find(PermissionNode.of("-cascade.module.*")));
+    }
+
+    @Test
+    public void testMatchesAny() {
+        assertTrue(trie.matchesAny(PermissionNode.of("cascade.prefix.*")));
+        assertTrue(trie.matchesAny(PermissionNode.of("cascade.ban")));
+        assertFalse(trie.matchesAny(PermissionNode.of("cascade.ban.*")));
+        assertFalse(trie.matchesAny(PermissionNode.of("cascade.kick")));
+    }
+
+}
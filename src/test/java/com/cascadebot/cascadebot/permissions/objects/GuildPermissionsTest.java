@@ -0,0 +1,33 @@
+package com.cascadebot.cascadebot.permissions.objects;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class GuildPermissionsTest {
+
+    @Test
+    public void testReloadedVersionIsNew() {
+        GuildPermissions evicted = new GuildPermissions();
+        evicted.createGroup("mods");
+        long cachedVersion = evicted.getVersion(); // The version permissions were resolved at before the guild was evicted
+
+        // Loading the guild again creates a new instance, which must not look like it has the cached permissions
+        GuildPermissions reloaded = new GuildPermissions();
+        assertNotEquals(cachedVersion, reloaded.getVersion());
+        reloaded.createGroup("mods");
+        assertNotEquals(cachedVersion, reloaded.getVersion());
+    }
+
+    @Test
+    public void testVersionChanges() {
+        GuildPermissions permissions = new GuildPermissions();
+        long version = permissions.getVersion();
+        permissions.createGroup("mods");
+        assertNotEquals(version, permissions.getVersion());
+        version = permissions.getVersion();
+        permissions.deleteGroup("mods");
+        assertNotEquals(version, permissions.getVersion());
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.cascadebot.cascadebot.permissions.objects;
+
+import com.cascadebot.cascadebot.permissions.PermissionBitSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PermissionHolderTest {
+
+    private static final Function<String, PermissionBitSet> BEFORE = Map.of(
+            "cascade.music.*", PermissionBitSet.of(0, 1),
+            "cascade.music.play", PermissionBitSet.of(0)
+    )::get;
+
+    // A permission matched by the wildcard has been registered since it was added
+    private static final Function<String, PermissionBitSet> AFTER = Map.of(
+            "cascade.music.*", PermissionBitSet.of(0, 1, 2),
+            "cascade.music.play", PermissionBitSet.of(0)
+    )::get;
+
+    @Test
+    public void testWildcardMatchesNewPermissions() {
+        User user = new User();
+        user.grantWildcard("cascade.music.*", BEFORE);
+        assertEquals(PermissionBitSet.of(0, 1), user.getGrants());
+        user.expandWildcards(AFTER);
+        assertEquals(PermissionBitSet.of(0, 1, 2), user.getGrants());
+    }
+
+    @Test
+    public void testRemovingWildcardKeepsIndividualGrants() {
+        User user = new User();
+        user.grant(BEFORE.apply("cascade.music.play"));
+        user.grantWildcard("cascade.music.*", BEFORE);
+        assertTrue(user.unsetWildcard("cascade.music.*", false, BEFORE));
+        assertEquals(PermissionBitSet.of(0), user.getGrants());
+    }
+
+    @Test
+    public void testIndividualWinsOverWildcard() {
+        User user = new User();
+        user.deny(BEFORE.apply("cascade.music.play"));
+        user.grantWildcard("cascade.music.*", BEFORE);
+        assertEquals(PermissionBitSet.of(1), user.getGrants());
+        assertEquals(PermissionBitSet.of(0), user.getDenies());
+
+        user.denyWildcard("cascade.music.*", AFTER);
+        assertEquals(PermissionBitSet.EMPTY, user.getGrants());
+        assertEquals(PermissionBitSet.of(0, 1, 2), user.getDenies());
+    }
+
+}
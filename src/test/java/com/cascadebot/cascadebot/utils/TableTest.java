@@ -0,0 +1,51 @@
+package com.cascadebot.cascadebot.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TableTest {
+
+    private final Table table = new Table.TableBuilder("Name", "Count")
+            .addRow("apple", "1")
+            .addRow("banana", "200")
+            .addRow("fig", "30")
+            .setFooter("Fruit")
+            .build();
+
+    @Test
+    public void testRender() {
+        assertEquals("```md\n" +
+                "+--------+-------+\n" +
+                "| Name   | Count |\n" +
+                "+--------+-------+\n" +
+                "| apple  | 1     |\n" +
+                "| banana | 200   |\n" +
+                "| fig    | 30    |\n" +
+                "+--------+-------+\n" +
+                "|Fruit           |\n" +
+                "+--------+-------+\n" +
+                "```", table.toString());
+    }
+
+    @Test
+    public void testRenderIsCached() {
+        assertSame(table.toString(), table.toString());
+    }
+
+    @Test
+    public void testRenderRange() {
+        assertEquals(table.getRows(2, 3).toString(), table.render(2, 3));
+        assertEquals("```md\n" +
+                "+------+-------+\n" +
+                "| Name | Count |\n" +
+                "+------+-------+\n" +
+                "| fig  | 30    |\n" +
+                "+------+-------+\n" +
+                "|Fruit         |\n" +
+                "+------+-------+\n" +
+                "```", table.render(2, 3));
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.cascadebot.cascadebot.utils.pagination;
+
+import com.cascadebot.cascadebot.utils.Table;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PageUtilsTest {
+
+    @Test
+    public void testSplitAtCharacter() {
+        List<String> strings = PageUtils.splitString("aaa bbb ccc", 7, ' ');
+        assertEquals(2, strings.size());
+        assertEquals("aaa bbb", strings.get(0));
+        assertEquals("ccc", strings.get(1));
+    }
+
+    @Test
+    public void testSplitWithoutCharacter() {
+        List<String> strings = PageUtils.splitString("abcdefghij", 4, ' ');
+        assertEquals(3, strings.size());
+        assertEquals("abcd", strings.get(0));
+        assertEquals("efgh", strings.get(1));
+        assertEquals("ij", strings.get(2));
+    }
+
+    @Test
+    public void testSplitExactLength() {
+        List<String> strings = PageUtils.splitString("abcd", 4, ' ');
+        assertEquals(1, strings.size());
+        assertEquals("abcd", strings.get(0));
+    }
+
+    @Test
+    public void testRandomSplitsRebuildString() {
+        Random random = new Random(42);
+        for (int run = 0; run < 500; run++) {
+            StringBuilder builder = new StringBuilder();
+            int stringLength = 1 + random.nextInt(20000);
+            for (int i = 0; i < stringLength; i++) {
+                int next = random.nextInt(30);
+                builder.append(next == 0 ? '\n' : (char) ('a' + next % 26));
+            }
+            String string = builder.toString();
+            int length = 1 + random.nextInt(1800);
+
+            int[] ranges = PageUtils.splitStringRanges(string, length, '\n');
+            StringBuilder rebuilt = new StringBuilder();
+            for (int i = 0; i < ranges.length; i += 2) {
+                assertTrue(ranges[i + 1] - ranges[i] <= length, "Page is longer than the length");
+                assertTrue(ranges[i + 1] > ranges[i], "Page is empty");
+                if (i > 0) {
+                    int gap = ranges[i] - ranges[i - 1];
+                    assertTrue(gap == 0 || (gap == 1 && string.charAt(ranges[i - 1]) == '\n'), "Page skipped characters");
+                    if (gap == 1) rebuilt.append('\n');
+                }
+                rebuilt.append(string, ranges[i], ranges[i + 1]);
+            }
+            assertEquals(0, ranges[0]);
+            assertEquals(string.length(), ranges[ranges.length - 1]);
+            assertEquals(string, rebuilt.toString());
+        }
+    }
+
+    @Test
+    public void testSplitTableIntoRowRanges() {
+        Table table = buildTable(25, null);
+        List<Page> pages = PageUtils.splitTableDataToPages(table, 10);
+        assertEquals(3, pages.size());
+        assertEquals(table.getBody().subList(0, 10), ((PageObjects.TablePage) pages.get(0)).getTable().getBody());
+        assertEquals(table.getBody().subList(10, 20), ((PageObjects.TablePage) pages.get(1)).getTable().getBody());
+        assertEquals(table.getBody().subList(20, 25), ((PageObjects.TablePage) pages.get(2)).getTable().getBody());
+    }
+
+    @Test
+    public void testSplitTableWithCharLength() {
+        for (String footer : new String[]{null, "A footer"}) {
+            Table table = buildTable(300, footer);
+            List<Page> pages = PageUtils.splitTableDataToPagesWithCharLength(table, 1800);
+            int rows = 0;
+            for (Page page : pages) {
+                Table pageTable = ((PageObjects.TablePage) page).getTable();
+                rows += pageTable.getBody().size();
+                int pageLength = pageTable.toString().length() + PageUtils.getPageNumberLength(pages.size());
+                assertTrue(pageLength <= 1800, "Page is longer than the length: " + pageLength);
+            }
+            assertEquals(300, rows);
+        }
+    }
+
+    private Table buildTable(int rows, String footer) {
+        Table.TableBuilder builder = new Table.TableBuilder("Name", "Value");
+        for (int i = 0; i < rows; i++) {
+            builder.addRow("Row " + i, String.valueOf(i * 31));
+        }
+        return builder.setFooter(footer).build();
+    }
+
+}
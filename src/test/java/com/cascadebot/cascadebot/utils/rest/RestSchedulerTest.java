@@ -0,0 +1,189 @@
+package com.cascadebot.cascadebot.utils.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RestSchedulerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long CHANNEL = 1;
+
+    private long now;
+    private final List<ScheduledDispatch> dispatches = new ArrayList<>();
+    private final List<String> sent = new ArrayList<>();
+
+    private RestScheduler scheduler(int maxQueued) {
+        return new RestScheduler(maxQueued, () -> now, (dispatch, delay) -> {
+            ScheduledDispatch scheduled = new ScheduledDispatch(dispatch, now + delay);
+            dispatches.add(scheduled);
+            return scheduled.future;
+        });
+    }
+
+    private CompletableFuture<String> submit(RestScheduler scheduler, RestPriority priority, RestRoute route, String name) {
+        return scheduler.submit(priority, route, CHANNEL, () -> {
+            sent.add(name);
+            return CompletableFuture.completedFuture(name);
+        });
+    }
+
+    // Uses up the channel's shared bucket, which sends five requests a second
+    private void fillSharedBucket(RestScheduler scheduler) {
+        for (int i = 0; i < 5; i++) {
+            submit(scheduler, RestPriority.CLEANUP, RestRoute.DELETE_MESSAGE, "fill");
+        }
+        sent.clear();
+    }
+
+    private void advance(long time) {
+        now += time;
+        for (ScheduledDispatch dispatch : new ArrayList<>(dispatches)) {
+            if (dispatch.runAt <= now && !dispatch.future.isCancelled() && !dispatch.future.isDone()) {
+                dispatch.future.complete(null);
+                dispatch.dispatch.run();
+            }
+        }
+    }
+
+    @Test
+    public void testSendsStraightAway() {
+        RestScheduler scheduler = scheduler(10);
+        CompletableFuture<String> future = submit(scheduler, RestPriority.REPLY, RestRoute.SEND_MESSAGE, "reply");
+        assertEquals("reply", future.getNow(null));
+        assertTrue(dispatches.isEmpty());
+    }
+
+    @Test
+    public void testHigherLaneFirstAcrossRoutes() {
+        RestScheduler scheduler = scheduler(10);
+        fillSharedBucket(scheduler);
+        submit(scheduler, RestPriority.CLEANUP, RestRoute.REACTION, "cleanup");
+        submit(scheduler, RestPriority.REACTION, RestRoute.REACTION, "reaction");
+        submit(scheduler, RestPriority.REPLY, RestRoute.SEND_MESSAGE, "reply");
+        assertTrue(sent.isEmpty());
+
+        advance(SECOND / 5); // One shared token
+        assertEquals(List.of("reply"), sent);
+        advance(SECOND / 5);
+        assertEquals(List.of("reply", "reaction"), sent);
+        advance(SECOND / 5); // The reaction route only sends four a second
+        advance(SECOND / 20);
+        assertEquals(List.of("reply", "reaction", "cleanup"), sent);
+    }
+
+    @Test
+    public void testLowerLaneOvertakesOnOtherRoute() {
+        RestScheduler scheduler = scheduler(10);
+        for (int i = 0; i < 5; i++) {
+            submit(scheduler, RestPriority.REPLY, RestRoute.SEND_MESSAGE, "reply" + i);
+        }
+        submit(scheduler, RestPriority.REPLY, RestRoute.SEND_MESSAGE, "blocked");
+        advance(SECOND / 2); // The shared bucket refills long before the send route
+        submit(scheduler, RestPriority.CLEANUP, RestRoute.DELETE_MESSAGE, "cleanup");
+        assertEquals("cleanup", sent.get(sent.size() - 1));
+        assertFalse(sent.contains("blocked"));
+    }
+
+    @Test
+    public void testStaleWorkDropped() {
+        RestScheduler scheduler = scheduler(10);
+        fillSharedBucket(scheduler);
+        CompletableFuture<String> cleanup = submit(scheduler, RestPriority.CLEANUP, RestRoute.REACTION, "cleanup");
+        now += RestPriority.CLEANUP.getMaxAge() + 1;
+        advance(0);
+        assertTrue(cleanup.isCancelled());
+        assertTrue(sent.isEmpty());
+        assertEquals(1, scheduler.getLaneStats().get(RestPriority.CLEANUP).getDropped());
+        assertEquals(0, scheduler.getQueued(RestPriority.CLEANUP));
+    }
+
+    @Test
+    public void testReactionsNeverStale() {
+        RestScheduler scheduler = scheduler(10);
+        fillSharedBucket(scheduler);
+        CompletableFuture<String> reaction = submit(scheduler, RestPriority.REACTION, RestRoute.REACTION, "reaction");
+        now += TimeUnit.MINUTES.toNanos(10);
+        advance(0);
+        assertEquals("reaction", reaction.getNow(null));
+    }
+
+    @Test
+    public void testMaxQueuedEvictsLowerLane() {
+        RestScheduler scheduler = scheduler(2);
+        fillSharedBucket(scheduler);
+        CompletableFuture<String> cleanup = submit(scheduler, RestPriority.CLEANUP, RestRoute.REACTION, "cleanup");
+        CompletableFuture<String> reaction = submit(scheduler, RestPriority.REACTION, RestRoute.REACTION, "reaction");
+        CompletableFuture<String> reply = submit(scheduler, RestPriority.REPLY, RestRoute.SEND_MESSAGE, "reply");
+        assertTrue(cleanup.isCancelled());
+        assertFalse(reaction.isDone());
+        assertFalse(reply.isDone());
+
+        CompletableFuture<String> newCleanup = submit(scheduler, RestPriority.CLEANUP, RestRoute.REACTION, "cleanup");
+        assertTrue(newCleanup.isCancelled());
+
+        submit(scheduler, RestPriority.MODERATION, RestRoute.MODERATION, "moderation");
+        assertTrue(reaction.isCancelled());
+        submit(scheduler, RestPriority.MODERATION, RestRoute.MODERATION, "moderation");
+        assertTrue(reply.isCancelled());
+
+        // Moderation work is never dropped, even over the limit
+        CompletableFuture<String> moderation = submit(scheduler, RestPriority.MODERATION, RestRoute.MODERATION, "moderation");
+        assertFalse(moderation.isDone());
+        assertEquals(3, scheduler.getQueued(RestPriority.MODERATION));
+    }
+
+    @Test
+    public void testDispatchScheduledForNextToken() {
+        RestScheduler scheduler = scheduler(10);
+        fillSharedBucket(scheduler);
+        submit(scheduler, RestPriority.CLEANUP, RestRoute.REACTION, "cleanup");
+        assertEquals(1, dispatches.size());
+        assertEquals(SECOND / 5, dispatches.get(0).runAt);
+
+        // Work waiting for the same token doesn't need another dispatch
+        submit(scheduler, RestPriority.REPLY, RestRoute.SEND_MESSAGE, "reply");
+        assertEquals(1, dispatches.size());
+
+        advance(SECOND / 5);
+        assertEquals(List.of("reply"), sent);
+        assertEquals(2, dispatches.size());
+        assertEquals(2 * SECOND / 5, dispatches.get(1).runAt);
+
+        advance(SECOND / 5);
+        assertEquals(List.of("reply", "cleanup"), sent);
+        assertEquals(2, dispatches.size());
+    }
+
+    @Test
+    public void testAwaitEmpty() {
+        RestScheduler scheduler = scheduler(10);
+        assertTrue(scheduler.awaitEmpty(0, TimeUnit.SECONDS));
+        fillSharedBucket(scheduler);
+        submit(scheduler, RestPriority.REPLY, RestRoute.SEND_MESSAGE, "reply");
+        assertFalse(scheduler.awaitEmpty(1, TimeUnit.MILLISECONDS));
+        advance(SECOND);
+        assertTrue(scheduler.awaitEmpty(0, TimeUnit.SECONDS));
+    }
+
+    private static class ScheduledDispatch {
+
+        private final Runnable dispatch;
+        private final long runAt;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private ScheduledDispatch(Runnable dispatch, long runAt) {
+            this.dispatch = dispatch;
+            this.runAt = runAt;
+        }
+
+    }
+
+}
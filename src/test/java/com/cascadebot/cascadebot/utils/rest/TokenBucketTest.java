@@ -0,0 +1,45 @@
+package com.cascadebot.cascadebot.utils.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testStartsFull() {
+        TokenBucket bucket = new TokenBucket(5, 5 * SECOND, 0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(0));
+        }
+        assertFalse(bucket.tryAcquire(0));
+    }
+
+    @Test
+    public void testRefill() {
+        TokenBucket bucket = new TokenBucket(5, 5 * SECOND, 0);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(0);
+        }
+        assertEquals(SECOND, bucket.getWait(0));
+        assertFalse(bucket.tryAcquire(SECOND / 2));
+        assertEquals(SECOND / 2, bucket.getWait(SECOND / 2));
+        assertTrue(bucket.tryAcquire(SECOND));
+        assertFalse(bucket.tryAcquire(SECOND));
+    }
+
+    @Test
+    public void testNeverOverfills() {
+        TokenBucket bucket = new TokenBucket(1, SECOND, 0);
+        assertTrue(bucket.tryAcquire(100 * SECOND));
+        assertFalse(bucket.tryAcquire(100 * SECOND));
+        assertEquals(0, bucket.getWait(101 * SECOND));
+    }
+
+}